@@ -0,0 +1,230 @@
+package net.devintia.commons.bukkit.scheduler;
+
+import lombok.extern.java.Log;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * An {@link Executor} which runs tasks on the server main thread.<br>
+ * Tasks from any thread are collected in one lock-free queue which gets drained once per tick by a single repeating Bukkit
+ * task. Every drain stops as soon as the configured time budget is used up, the remaining tasks are carried over to the next
+ * tick. Pass it to a {@link net.devintia.commons.async.Future} to apply async results on the main thread:<br>
+ * <code>new Future&lt;&gt;(mainThreadExecutor)</code> or <code>future.addListener(listener, mainThreadExecutor)</code>
+ *
+ * @author MiniDigger
+ * @version 1.0.0
+ */
+@Log
+public class MainThreadExecutor implements Executor {
+
+    private final Plugin plugin;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    private volatile long budgetNanos;
+    private BukkitTask task;
+
+    //Only accept tasks while the drain task is scheduled
+    private volatile boolean running;
+
+    //Metrics, only written by the main thread
+    private volatile long lastDrainNanos;
+    private volatile long maxDrainNanos;
+    private volatile int lastDrainCount;
+    private volatile long executedTasks;
+    private volatile long carriedOverTicks;
+
+    /**
+     * Creates a new executor for the given plugin. It needs to be started with {@link #start()} before it accepts any task.
+     *
+     * @param plugin       The plugin which owns the repeating drain task
+     * @param budgetMillis The maximum amount of milliseconds the executor may spend per tick
+     */
+    public MainThreadExecutor( Plugin plugin, long budgetMillis ) {
+        checkNotNull( plugin );
+
+        this.plugin = plugin;
+        setBudget( budgetMillis );
+    }
+
+    /**
+     * Starts the repeating task which drains the queue once per tick
+     */
+    public synchronized void start() {
+        checkState( task == null, "Executor has already been started" );
+
+        task = plugin.getServer().getScheduler().runTaskTimer( plugin, this::drain, 1L, 1L );
+        running = true;
+    }
+
+    /**
+     * Stops the repeating task. New tasks get rejected from now on. Tasks which are still queued are run right away if
+     * this is called on the main thread, otherwise they are run within the next tick. If the plugin has already been
+     * disabled there is no main thread left to run them on, they get dropped then.
+     */
+    public synchronized void stop() {
+        if ( task == null ) {
+            return;
+        }
+
+        running = false;
+        task.cancel();
+        task = null;
+
+        if ( plugin.getServer().isPrimaryThread() ) {
+            drain( Long.MAX_VALUE );
+        } else if ( plugin.isEnabled() ) {
+            plugin.getServer().getScheduler().runTask( plugin, () -> drain( Long.MAX_VALUE ) );
+        } else {
+            discard();
+        }
+    }
+
+    /**
+     * Drops all queued tasks since they can't be run on the main thread anymore
+     */
+    private void discard() {
+        int count = 0;
+        while ( queue.poll() != null ) {
+            queueDepth.decrementAndGet();
+            count++;
+        }
+
+        if ( count > 0 ) {
+            log.warning( "Dropped " + count + " main thread tasks of " + plugin.getName() + " since the plugin has been disabled" );
+        }
+    }
+
+    /**
+     * Queues the given task to be run on the main thread within one of the next ticks
+     *
+     * @param command The task to run
+     * @throws RejectedExecutionException if the executor has not been started or has been stopped
+     */
+    @Override
+    public void execute( Runnable command ) {
+        checkNotNull( command );
+
+        if ( !running ) {
+            throw new RejectedExecutionException( "The main thread executor of " + plugin.getName() + " is not running" );
+        }
+
+        queue.add( command );
+        queueDepth.incrementAndGet();
+
+        //Stopped in the meantime, take the task back unless the final drain already got it
+        if ( !running && queue.remove( command ) ) {
+            queueDepth.decrementAndGet();
+            throw new RejectedExecutionException( "The main thread executor of " + plugin.getName() + " is not running" );
+        }
+    }
+
+    /**
+     * Changes the time budget of every drain
+     *
+     * @param budgetMillis The maximum amount of milliseconds the executor may spend per tick
+     */
+    public void setBudget( long budgetMillis ) {
+        checkArgument( budgetMillis > 0, "Budget must be greater than 0" );
+
+        budgetNanos = TimeUnit.MILLISECONDS.toNanos( budgetMillis );
+    }
+
+    /**
+     * @return The time budget of every drain in milliseconds
+     */
+    public long getBudget() {
+        return TimeUnit.NANOSECONDS.toMillis( budgetNanos );
+    }
+
+    /**
+     * @return The amount of tasks which are waiting to be run
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return The time the last drain took in nanoseconds
+     */
+    public long getLastDrainNanos() {
+        return lastDrainNanos;
+    }
+
+    /**
+     * @return The longest time a drain took in nanoseconds
+     */
+    public long getMaxDrainNanos() {
+        return maxDrainNanos;
+    }
+
+    /**
+     * @return The amount of tasks the last drain has run
+     */
+    public int getLastDrainCount() {
+        return lastDrainCount;
+    }
+
+    /**
+     * @return The amount of tasks which have been run in total
+     */
+    public long getExecutedTasks() {
+        return executedTasks;
+    }
+
+    /**
+     * @return The amount of ticks after which tasks had to be carried over to the next tick
+     */
+    public long getCarriedOverTicks() {
+        return carriedOverTicks;
+    }
+
+    private void drain() {
+        drain( budgetNanos );
+    }
+
+    private void drain( long budget ) {
+        long start = System.nanoTime();
+        int count = 0;
+
+        Runnable command;
+        while ( ( command = queue.poll() ) != null ) {
+            queueDepth.decrementAndGet();
+            count++;
+
+            try {
+                command.run();
+            } catch ( Throwable t ) {
+                log.log( Level.SEVERE, "Exception while running a main thread task of " + plugin.getName(), t );
+            }
+
+            //Always run at least one task per tick so the queue can't starve
+            if ( System.nanoTime() - start >= budget ) {
+                if ( !queue.isEmpty() ) {
+                    carriedOverTicks++;
+                }
+                break;
+            }
+        }
+
+        long took = System.nanoTime() - start;
+        lastDrainNanos = took;
+        lastDrainCount = count;
+        executedTasks += count;
+        if ( took > maxDrainNanos ) {
+            maxDrainNanos = took;
+        }
+    }
+}
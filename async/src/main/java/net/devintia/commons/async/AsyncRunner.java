@@ -0,0 +1,218 @@
+package net.devintia.commons.async;
+
+import java.lang.reflect.Method;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs blocking tasks (JDBC, file I/O, ...) in the background and returns their results as {@link Future}s.
+ * <p>
+ * On JVMs which support virtual threads every task gets its own virtual thread, on older JVMs the tasks run on a bounded
+ * pool of platform threads. In both cases the runner never runs more than the configured amount of tasks at the same time,
+ * further tasks wait in a lock-free queue until a running task finished.
+ *
+ * @author Digot
+ * @version 1.0
+ */
+public class AsyncRunner implements AutoCloseable {
+
+    //The maximum amount of platform threads a runner uses when virtual threads are not available
+    private static final int MAX_PLATFORM_THREADS = Math.max( 4, Runtime.getRuntime().availableProcessors() * 4 );
+
+    private static final Method VIRTUAL_EXECUTOR_FACTORY = findVirtualExecutorFactory();
+
+    private final String name;
+    private final int maxConcurrency;
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final Queue<Task<?>> queued = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+
+    /**
+     * Creates a new runner
+     *
+     * @param name The name of the runner, used for the names of its threads
+     * @param maxConcurrency The maximum amount of tasks which may run at the same time
+     */
+    public AsyncRunner( String name, int maxConcurrency ) {
+        if ( maxConcurrency <= 0 ) {
+            throw new IllegalArgumentException( "maxConcurrency must be greater than 0" );
+        }
+
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+
+        ExecutorService virtualExecutor = createVirtualExecutor();
+        this.virtual = virtualExecutor != null;
+        this.executor = this.virtual ? virtualExecutor : this.createPlatformExecutor();
+    }
+
+    /**
+     * @return Whether the running JVM supports virtual threads
+     */
+    public static boolean isVirtualThreadsAvailable() {
+        return VIRTUAL_EXECUTOR_FACTORY != null;
+    }
+
+    /**
+     * Runs the given task in the background. If the returned Future gets cancelled before the task started, the task won't
+     * be run at all.
+     *
+     * @param task The task to run
+     * @param <T> The type of the result
+     * @return the Future which resolves with the result of the task or fails with the exception it has thrown
+     */
+    public <T> Future<T> run( Callable<T> task ) {
+        if ( task == null ) {
+            throw new NullPointerException( "task" );
+        }
+
+        Future<T> future = new Future<>();
+        this.queuedCount.incrementAndGet();
+        this.queued.add( new Task<>( task, future ) );
+        this.dispatch();
+        return future;
+    }
+
+    /**
+     * @return Whether the tasks of this runner run on virtual threads
+     */
+    public boolean isVirtual() {
+        return this.virtual;
+    }
+
+    /**
+     * @return The maximum amount of tasks which may run at the same time
+     */
+    public int getMaxConcurrency() {
+        return this.maxConcurrency;
+    }
+
+    /**
+     * @return The amount of tasks which are currently running
+     */
+    public int getActiveTasks() {
+        return this.active.get();
+    }
+
+    /**
+     * @return The amount of tasks which wait for a free slot
+     */
+    public int getQueuedTasks() {
+        return this.queuedCount.get();
+    }
+
+    /**
+     * Shuts the runner down. Running tasks are allowed to finish, tasks that are still queued are cancelled.
+     */
+    @Override
+    public void close() {
+        this.executor.shutdown();
+
+        Task<?> task;
+        while ( ( task = this.queued.poll() ) != null ) {
+            this.queuedCount.decrementAndGet();
+            task.future.cancel();
+        }
+    }
+
+    /**
+     * Starts queued tasks as long as there are free slots
+     */
+    private void dispatch() {
+        while ( !this.queued.isEmpty() ) {
+            int current = this.active.get();
+            if ( current >= this.maxConcurrency ) {
+                //The task which frees the next slot will call dispatch again
+                return;
+            }
+            if ( !this.active.compareAndSet( current, current + 1 ) ) {
+                continue;
+            }
+
+            Task<?> task = this.queued.poll();
+            if ( task == null ) {
+                //Another thread took the last task, give the slot back and check again
+                this.active.decrementAndGet();
+                continue;
+            }
+            this.queuedCount.decrementAndGet();
+
+            try {
+                this.executor.execute( task );
+            } catch ( RejectedExecutionException e ) {
+                this.active.decrementAndGet();
+                task.future.fail( e );
+            }
+        }
+    }
+
+    private ExecutorService createPlatformExecutor() {
+        int threads = Math.min( this.maxConcurrency, MAX_PLATFORM_THREADS );
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread( runnable, this.name + " #" + counter.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        };
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor( threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory );
+        pool.allowCoreThreadTimeOut( true );
+        return pool;
+    }
+
+    private static ExecutorService createVirtualExecutor() {
+        if ( VIRTUAL_EXECUTOR_FACTORY == null ) {
+            return null;
+        }
+
+        try {
+            return (ExecutorService) VIRTUAL_EXECUTOR_FACTORY.invoke( null );
+        } catch ( ReflectiveOperationException e ) {
+            return null;
+        }
+    }
+
+    private static Method findVirtualExecutorFactory() {
+        try {
+            //Only present on Java 21+, this library still targets Java 8
+            return java.util.concurrent.Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" );
+        } catch ( NoSuchMethodException e ) {
+            return null;
+        }
+    }
+
+    private final class Task<T> implements Runnable {
+
+        private final Callable<T> callable;
+        private final Future<T> future;
+
+        private Task( Callable<T> callable, Future<T> future ) {
+            this.callable = callable;
+            this.future = future;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if ( !this.future.isDone() ) {
+                    this.future.resolve( this.callable.call() );
+                }
+            } catch ( Throwable t ) {
+                this.future.fail( t );
+            } finally {
+                AsyncRunner.this.active.decrementAndGet();
+                AsyncRunner.this.dispatch();
+            }
+        }
+    }
+}
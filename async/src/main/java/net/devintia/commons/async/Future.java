@@ -1,13 +1,52 @@
 package net.devintia.commons.async;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * A basic future class that supports listeners.
+ * <p>
+ * The whole state of the Future lives in a single volatile field. While the Future is pending that field holds the top of a
+ * lock-free (Treiber) stack of registered listeners, once it is done it holds the immutable outcome. Reading the
+ * state therefore costs one volatile load and completing the Future costs one successful CAS.
+ * <p>
+ * Futures can be chained with {@link #map(Callback)}, {@link #flatMap(Function)}, {@link #thenAccept(Delegate)},
+ * {@link #exceptionally(Function)} and {@link #whenComplete(BiConsumer)}. Every stage is triggered directly by the
+ * completion of the previous one on the completing thread. If the previous stage is already done, the new stage is
+ * computed immediately without registering anything.
+ * <p>
+ * Multiple Futures can be joined with {@link #all(Collection)}, {@link #allSettled(Collection)}, {@link #any(Collection)}
+ * and {@link #firstSuccessful(Collection)}. Each of them keeps track of the pending Futures with a single atomic counter.
+ * <p>
+ * A pending Future can be cancelled with {@link #cancel()} and bounded with {@link #orTimeout(long, TimeUnit)}. Timeouts
+ * are tracked by the {@link HashedWheelTimer#shared() shared timer wheel}, no thread is blocked for them.
+ * <p>
+ * Listeners and chained stages are called on the completing thread unless the Future has been created with a default
+ * {@link Executor} or the listener has been added with {@link #addListener(FutureListener, Executor)}. They are always
+ * called after the result has been published and without holding any lock. Stages created from a Future with a default
+ * Executor inherit it.
+ * <p>
+ * {@link #toCompletionStage()} and {@link #from(CompletionStage)} bridge between Futures and
+ * {@link java.util.concurrent.CompletableFuture}s with a single relay in each direction.
  *
  * @author Digot
  * @version 1.0
@@ -15,17 +54,41 @@ import java.util.concurrent.TimeoutException;
  */
 public class Future<T> {
 
-    private FutureState state;
-    private T result;
-    private Throwable failCause;
-    private Set<FutureListener<T>> registeredListeners;
+    private static final Logger LOGGER = Logger.getLogger( Future.class.getName() );
+
+    @SuppressWarnings( "rawtypes" )
+    private static final AtomicReferenceFieldUpdater<Future, Object> STATE_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater( Future.class, Object.class, "state" );
+
+    @SuppressWarnings( "rawtypes" )
+    private static final AtomicReferenceFieldUpdater<Future, Waiter> WAITERS_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater( Future.class, Waiter.class, "waiters" );
+
+    private static final Outcome RESOLVED_NULL = new Outcome( FutureState.RESOLVED, null, null );
+
+    //Either null (pending, no listeners), the top Completion of the listener stack (pending) or the Outcome (done)
+    private volatile Object state;
+
+    //The threads blocked in get, kept apart from the listener stack so waiters which time out can be unlinked
+    private volatile Waiter waiters;
+
+    //The Executor listeners and chained stages are called on, null to call them on the completing thread
+    private final Executor executor;
 
     /**
      * Creates a new Future instance
      */
     public Future() {
-        this.state = FutureState.PENDING;
-        this.registeredListeners = new HashSet<>();
+        this( null );
+    }
+
+    /**
+     * Creates a new Future instance which calls its listeners and chained stages on the given Executor
+     *
+     * @param executor The default Executor for listeners, null to call them on the completing thread
+     */
+    public Future( Executor executor ) {
+        this.executor = executor;
     }
 
     /**
@@ -42,49 +105,309 @@ public class Future<T> {
 
 
 
+    /**
+     * Creates a Future that resolves with the results of all given Futures in iteration order once all of them resolved.
+     * If any of the given Futures fails, the returned Future fails immediately with the same cause.
+     *
+     * @param futures The Futures to join
+     * @param <T> The type of the results
+     * @return the joined Future
+     */
+    public static <T> Future<List<T>> all( Collection<? extends Future<? extends T>> futures ) {
+        return join( futures, true );
+    }
+
+    /**
+     * Creates a Future that resolves once all given Futures are done, no matter whether they resolved or failed. The result
+     * list contains the results in iteration order, Futures that failed contribute null.
+     *
+     * @param futures The Futures to join
+     * @param <T> The type of the results
+     * @return the joined Future
+     */
+    public static <T> Future<List<T>> allSettled( Collection<? extends Future<? extends T>> futures ) {
+        return join( futures, false );
+    }
+
+    /**
+     * Creates a Future that completes the same way as the first of the given Futures which is done, no matter whether it
+     * resolved or failed. If no Futures are given, the returned Future fails with a {@link NoSuchElementException}.
+     *
+     * @param futures The Futures to wait for
+     * @param <T> The type of the result
+     * @return the Future of the first done Future
+     */
+    public static <T> Future<T> any( Collection<? extends Future<? extends T>> futures ) {
+        Future<T> downstream = new Future<>();
+        if ( futures.isEmpty() ) {
+            downstream.fail( new NoSuchElementException( "No futures given" ) );
+            return downstream;
+        }
+
+        for ( Future<? extends T> future : futures ) {
+            Object current = future.state;
+            if ( current instanceof Outcome ) {
+                downstream.complete( (Outcome) current );
+                break;
+            }
+            future.push( new RelayCompletion( downstream ) );
+        }
+        return downstream;
+    }
+
+    /**
+     * Creates a Future that resolves with the result of the first of the given Futures which resolves. The returned Future
+     * only fails if all given Futures failed, it then carries the cause of the last failure.
+     *
+     * @param futures The Futures to wait for
+     * @param <T> The type of the result
+     * @return the Future of the first successful Future
+     */
+    public static <T> Future<T> firstSuccessful( Collection<? extends Future<? extends T>> futures ) {
+        Future<T> downstream = new Future<>();
+        if ( futures.isEmpty() ) {
+            downstream.fail( new NoSuchElementException( "No futures given" ) );
+            return downstream;
+        }
+
+        Aggregate aggregate = new Aggregate( downstream, futures.size(), false, null );
+        for ( Future<? extends T> future : futures ) {
+            future.push( new AggregateCompletion( aggregate, -1 ) );
+        }
+        return downstream;
+    }
+
+    /**
+     * Creates a Future which completes the same way as the given CompletionStage. A {@link CompletionException} gets
+     * unwrapped to its cause, a {@link CancellationException} cancels the Future.
+     *
+     * @param stage The CompletionStage to adapt
+     * @param <T> The type of the result
+     * @return the adapted Future
+     */
+    public static <T> Future<T> from( CompletionStage<T> stage ) {
+        if ( stage instanceof BridgeStage && ( (BridgeStage<T>) stage ).source != null ) {
+            //Round trip, hand out the original Future again
+            return ( (BridgeStage<T>) stage ).source;
+        }
+
+        Future<T> future = new Future<>();
+        stage.whenComplete( ( result, cause ) -> {
+            if ( cause == null ) {
+                future.resolve( result );
+                return;
+            }
+
+            Throwable unwrapped = cause instanceof CompletionException && cause.getCause() != null ? cause.getCause() : cause;
+            if ( unwrapped instanceof CancellationException ) {
+                future.cancel();
+            } else {
+                future.fail( unwrapped );
+            }
+        } );
+        return future;
+    }
+
+    private static <T> Future<List<T>> join( Collection<? extends Future<? extends T>> futures, boolean failFast ) {
+        Future<List<T>> downstream = new Future<>();
+        if ( futures.isEmpty() ) {
+            downstream.resolve( Collections.<T>emptyList() );
+            return downstream;
+        }
+
+        Aggregate aggregate = new Aggregate( downstream, futures.size(), failFast, new Object[futures.size()] );
+        int index = 0;
+        for ( Future<? extends T> future : futures ) {
+            future.push( new AggregateCompletion( aggregate, index++ ) );
+        }
+        return downstream;
+    }
+
     /**
      * Adds a {@link FutureListener} that listens to the result of the Future. If the Future is already finished when the listener is added, it gets called instead
      *
      * @param listener The listener that should be added
      */
-    public synchronized void addListener( FutureListener<T> listener ) {
-        switch ( this.state ) {
-            case PENDING: this.registeredListeners.add( listener );
-                break;
-            case RESOLVED: listener.onResolved( this.result );
-                break;
-            case FAILED: listener.onFailed( this.failCause );
-                break;
-            default: break;
+    public void addListener( FutureListener<T> listener ) {
+        this.addListener( listener, this.executor );
+    }
+
+    /**
+     * Adds a {@link FutureListener} that gets called on the given Executor once the Future is finished. If the Future is
+     * already finished when the listener is added, it gets submitted to the Executor right away.
+     *
+     * @param listener The listener that should be added
+     * @param executor The Executor to call the listener on, null to call it on the completing thread
+     */
+    public void addListener( FutureListener<T> listener, Executor executor ) {
+        Completion<T> completion = new ListenerCompletion<>( listener );
+        completion.executor = executor;
+        this.push( completion );
+    }
+
+    /**
+     * Creates a new Future which resolves with the result of the given Callback applied to the result of this Future.
+     * If this Future fails or the Callback throws, the returned Future fails as well.
+     *
+     * @param callback The Callback which transforms the result
+     * @return the new Future
+     */
+    public Future<T> map( Callback<T> callback ) {
+        Future<T> downstream = new Future<>( this.executor );
+        Object current = this.state;
+        if ( current instanceof Outcome && this.executor == null ) {
+            MapCompletion.apply( (Outcome) current, callback, downstream );
+        } else {
+            this.pushStage( new MapCompletion<>( callback, downstream ) );
         }
+        return downstream;
     }
 
     /**
-     * Finishes the Future and signals, that the execution of the corresponding task has failed
+     * Creates a new Future which completes the same way as the Future returned by the given function when it is applied
+     * to the result of this Future. If this Future fails or the function throws, the returned Future fails as well.
      *
-     * @param cause The reason why the Future failed
+     * @param function The function which starts the next asynchronous step
+     * @param <R> The type of the result of the next step
+     * @return the new Future
+     */
+    public <R> Future<R> flatMap( Function<? super T, Future<R>> function ) {
+        Future<R> downstream = new Future<>( this.executor );
+        Object current = this.state;
+        if ( current instanceof Outcome && this.executor == null ) {
+            FlatMapCompletion.apply( (Outcome) current, function, downstream );
+        } else {
+            this.pushStage( new FlatMapCompletion<>( function, downstream ) );
+        }
+        return downstream;
+    }
+
+    /**
+     * Creates a new Future which resolves with null after the given Delegate consumed the result of this Future.
+     * If this Future fails or the Delegate throws, the returned Future fails as well.
+     *
+     * @param delegate The Delegate which consumes the result
+     * @return the new Future
      */
-    public synchronized void fail( Throwable cause ) {
-        //Set the fail cause and switch state
-        this.failCause = cause;
-        this.state = FutureState.FAILED;
+    public Future<Void> thenAccept( Delegate<T> delegate ) {
+        Future<Void> downstream = new Future<>( this.executor );
+        Object current = this.state;
+        if ( current instanceof Outcome && this.executor == null ) {
+            AcceptCompletion.apply( (Outcome) current, delegate, downstream );
+        } else {
+            this.pushStage( new AcceptCompletion<>( delegate, downstream ) );
+        }
+        return downstream;
+    }
 
-        //Notify threads and call the listeners
-        this.finish();
+    /**
+     * Creates a new Future which resolves with the result of this Future or, if this Future fails, with the result of the
+     * given function applied to the fail cause.
+     *
+     * @param function The function which recovers from the failure
+     * @return the new Future
+     */
+    public Future<T> exceptionally( Function<Throwable, ? extends T> function ) {
+        Future<T> downstream = new Future<>( this.executor );
+        Object current = this.state;
+        if ( current instanceof Outcome && this.executor == null ) {
+            RecoverCompletion.apply( (Outcome) current, function, downstream );
+        } else {
+            this.pushStage( new RecoverCompletion<>( function, downstream ) );
+        }
+        return downstream;
     }
 
     /**
-     * Finishes the Future and signals, that the execution of the corresponding task has succeeded
+     * Creates a new Future which completes the same way as this Future after the given action has been called with either
+     * the result (and null) or null and the fail cause. If the action throws while this Future resolved, the returned Future
+     * fails with the thrown exception.
+     *
+     * @param action The action which gets called on completion
+     * @return the new Future
+     */
+    public Future<T> whenComplete( BiConsumer<? super T, ? super Throwable> action ) {
+        Future<T> downstream = new Future<>( this.executor );
+        Object current = this.state;
+        if ( current instanceof Outcome && this.executor == null ) {
+            WhenCompleteCompletion.apply( (Outcome) current, action, downstream );
+        } else {
+            this.pushStage( new WhenCompleteCompletion<>( action, downstream ) );
+        }
+        return downstream;
+    }
+
+    /**
+     * Adapts this Future to a {@link CompletionStage}. The returned stage is a {@link CompletableFuture} which completes
+     * the same way as this Future. Completing or cancelling it completes or cancels this Future instead, so both always
+     * agree. The obtrude methods are not supported.
+     *
+     * @return the adapted CompletionStage
+     */
+    public CompletionStage<T> toCompletionStage() {
+        Object current = this.state;
+        if ( current instanceof Outcome ) {
+            BridgeStage<T> stage = new BridgeStage<>( null );
+            stage.accept( (Outcome) current );
+            return stage;
+        }
+
+        BridgeStage<T> stage = new BridgeStage<>( this );
+        this.push( new StageCompletion<>( stage ) );
+        return stage;
+    }
+
+    /**
+     * Finishes the Future and signals, that the execution of the corresponding task has failed. If the Future is already
+     * done this call has no effect.
+     *
+     * @param cause The reason why the Future failed
+     */
+    public void fail( Throwable cause ) {
+        this.complete( new Outcome( FutureState.FAILED, null, cause ) );
+    }
+
+    /**
+     * Finishes the Future and signals, that the execution of the corresponding task has succeeded. If the Future is already
+     * done this call has no effect.
      *
      * @param result The result of the task
      */
-    public synchronized void resolve( T result ) {
-        //Set the result and switch state
-        this.result = result;
-        this.state = FutureState.RESOLVED;
+    public void resolve( T result ) {
+        this.complete( result == null ? RESOLVED_NULL : new Outcome( FutureState.RESOLVED, result, null ) );
+    }
 
-        //Notify threads and call the listeners
-        this.finish();
+    /**
+     * Cancels the Future if it is still pending. Listeners get called with a {@link CancellationException} as fail cause.
+     *
+     * @return true if the Future got cancelled by this call, false if it was already done
+     */
+    public boolean cancel() {
+        //Don't create the exception if there is nothing to cancel
+        if ( this.isDone() ) {
+            return false;
+        }
+
+        return this.complete( new Outcome( FutureState.CANCELLED, null, new CancellationException( "Future has been cancelled" ) ) );
+    }
+
+    /**
+     * Lets this Future fail with a {@link TimeoutException} if it is not done within the given time. The timeout gets
+     * removed from the timer as soon as the Future completes.
+     *
+     * @param timeout The amount of time in the given TimeUnit the Future may take
+     * @param timeUnit The TimeUnit of the timeout value
+     * @return this Future
+     */
+    public Future<T> orTimeout( long timeout, TimeUnit timeUnit ) {
+        if ( this.state instanceof Outcome ) {
+            return this;
+        }
+
+        TimeoutCompletion completion = new TimeoutCompletion( this );
+        completion.timeout = HashedWheelTimer.shared().schedule( completion, timeout, timeUnit );
+        this.push( completion );
+        return this;
     }
 
     /**
@@ -94,8 +417,9 @@ public class Future<T> {
      * @throws InterruptedException When the method call was interrupted while waiting for the result
      * @throws ExecutionException When the future failed to resolve
      * @throws TimeoutException Won't throw in this overload
+     * @throws CancellationException When the future has been cancelled
      */
-    public synchronized T get() throws InterruptedException, ExecutionException, TimeoutException {
+    public T get() throws InterruptedException, ExecutionException, TimeoutException {
         return this.get( 0L, TimeUnit.MILLISECONDS );
     }
 
@@ -108,71 +432,651 @@ public class Future<T> {
      * @throws InterruptedException When the method call was interrupted while waiting for the result
      * @throws ExecutionException When the future failed to resolve
      * @throws TimeoutException When the result takes too long to resolve
+     * @throws CancellationException When the future has been cancelled
      */
-    public synchronized T get( long timeout, TimeUnit timeUnit ) throws ExecutionException, InterruptedException, TimeoutException {
-        switch ( this.state ) {
-            case RESOLVED: return this.result;
-            case FAILED:   throw new ExecutionException( "Future failed to resolve", this.failCause );
-            case PENDING:
-            default:
-                if( timeout == 0 ) {
-                    //No timeout, wait until we have the result and then return it
-                    this.wait();
-                    return this.get();
-                }
-                else {
-                    //Wait for the result within the given timeout time and return it.
-                    this.wait( timeUnit.toMillis( timeout ) );
-                    if( !this.isDone() ) throw new TimeoutException( "Future took too long!" );
-                    return this.get();
-                }
-
+    public T get( long timeout, TimeUnit timeUnit ) throws ExecutionException, InterruptedException, TimeoutException {
+        Object current = this.state;
+        if ( !( current instanceof Outcome ) ) {
+            current = this.await( timeout == 0 ? 0L : Math.max( 1L, timeUnit.toNanos( timeout ) ) );
         }
+
+        return this.report( (Outcome) current );
     }
 
     /**
      * @return Whether the Future is done or not
      */
-    public synchronized boolean isDone() {
-        return this.state != FutureState.PENDING;
+    public boolean isDone() {
+        return this.state instanceof Outcome;
     }
 
     /**
      * @return Whether the execution of the Future was successful or not
      */
-    public synchronized boolean isSuccess() {
-        return this.state == FutureState.RESOLVED;
+    public boolean isSuccess() {
+        Object current = this.state;
+        return current instanceof Outcome && ( (Outcome) current ).state == FutureState.RESOLVED;
     }
 
     /**
      * @return Whether the execution of the Future was a failure or not
      */
-    public synchronized boolean isFailed() {
-        return this.state == FutureState.FAILED;
+    public boolean isFailed() {
+        Object current = this.state;
+        return current instanceof Outcome && ( (Outcome) current ).state == FutureState.FAILED;
+    }
+
+    /**
+     * @return Whether the Future has been cancelled or not
+     */
+    public boolean isCancelled() {
+        Object current = this.state;
+        return current instanceof Outcome && ( (Outcome) current ).state == FutureState.CANCELLED;
     }
 
-    private synchronized void finish() {
-        //Make sure that the future is done
-        if( !this.isDone() ) {
-            throw new IllegalStateException( "Still pending" );
+    /**
+     * Publishes the given Outcome with a single CAS and runs all listeners that were registered until then
+     *
+     * @param outcome The final Outcome of this Future
+     * @return true if this call completed the Future, false if it was already done
+     */
+    private boolean complete( Outcome outcome ) {
+        Object current;
+        do {
+            current = this.state;
+            if ( current instanceof Outcome ) {
+                return false;
+            }
+        } while ( !STATE_UPDATER.compareAndSet( this, current, outcome ) );
+
+        //The stack is detached now, nobody else can see it anymore
+        this.releaseWaiters();
+        this.finish( (Completion<?>) current, outcome );
+        return true;
+    }
+
+    /**
+     * Pushes a Completion onto the listener stack or runs it directly if the Future is already done
+     *
+     * @param completion The Completion to register
+     */
+    private void push( Completion<?> completion ) {
+        Object current;
+        do {
+            current = this.state;
+            if ( current instanceof Outcome ) {
+                this.run( completion, (Outcome) current );
+                return;
+            }
+            completion.next = (Completion<?>) current;
+        } while ( !STATE_UPDATER.compareAndSet( this, current, completion ) );
+    }
+
+    /**
+     * Pushes a chained stage which gets called on the default Executor of this Future
+     *
+     * @param completion The Completion of the stage
+     */
+    private void pushStage( Completion<?> completion ) {
+        completion.executor = this.executor;
+        this.push( completion );
+    }
+
+    private void finish( Completion<?> stack, Outcome outcome ) {
+        //The stack is LIFO, reverse it so listeners get called in the order they were added
+        Completion<?> reversed = null;
+        while ( stack != null ) {
+            Completion<?> next = stack.next;
+            stack.next = reversed;
+            reversed = stack;
+            stack = next;
         }
 
-        //Call all listeners
-        for ( FutureListener<T> registeredCallback : this.registeredListeners ) {
-            switch ( this.state ) {
-                case RESOLVED: registeredCallback.onResolved( this.result );
-                    break;
-                case FAILED: registeredCallback.onFailed( this.failCause );
+        while ( reversed != null ) {
+            Completion<?> next = reversed.next;
+            reversed.next = null;
+            this.run( reversed, outcome );
+            reversed = next;
+        }
+    }
+
+    private void run( Completion<?> completion, Outcome outcome ) {
+        Executor target = completion.executor;
+        if ( target != null ) {
+            try {
+                target.execute( () -> invoke( completion, outcome ) );
+                return;
+            } catch ( RejectedExecutionException e ) {
+                LOGGER.log( Level.WARNING, "Executor rejected a Future listener, calling it on the completing thread", e );
+            }
+        }
+
+        invoke( completion, outcome );
+    }
+
+    private static void invoke( Completion<?> completion, Outcome outcome ) {
+        try {
+            completion.complete( outcome );
+        } catch ( RuntimeException e ) {
+            //One broken listener must not keep the others from being called
+            LOGGER.log( Level.WARNING, "Exception while calling a Future listener", e );
+        }
+    }
+
+    /**
+     * Parks the current thread until the Future is done or the timeout has elapsed
+     *
+     * @param timeoutNanos The maximum time to wait in nanoseconds, 0 to wait forever
+     * @return the Outcome of the Future
+     * @throws InterruptedException When the thread was interrupted while waiting
+     * @throws TimeoutException When the Future did not complete within the timeout
+     */
+    private Outcome await( long timeoutNanos ) throws InterruptedException, TimeoutException {
+        long deadline = timeoutNanos == 0 ? 0L : System.nanoTime() + timeoutNanos;
+        Waiter waiter = new Waiter( Thread.currentThread() );
+        Waiter top;
+        do {
+            top = this.waiters;
+            waiter.next = top;
+        } while ( !WAITERS_UPDATER.compareAndSet( this, top, waiter ) );
+
+        try {
+            while ( true ) {
+                Object current = this.state;
+                if ( current instanceof Outcome ) {
+                    return (Outcome) current;
+                }
+
+                if ( Thread.interrupted() ) {
+                    throw new InterruptedException();
+                }
+
+                if ( deadline == 0L ) {
+                    LockSupport.park( this );
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if ( remaining <= 0L ) {
+                        throw new TimeoutException( "Future took too long!" );
+                    }
+                    LockSupport.parkNanos( this, remaining );
+                }
+            }
+        } finally {
+            //Unlink the waiter right away, otherwise polling with a timeout would grow the stack until completion
+            waiter.thread = null;
+            this.removeWaiters();
+        }
+    }
+
+    /**
+     * Wakes up all threads blocked in get, called after the Outcome has been set
+     */
+    private void releaseWaiters() {
+        Waiter waiter = WAITERS_UPDATER.getAndSet( this, null );
+        while ( waiter != null ) {
+            Thread waiting = waiter.thread;
+            if ( waiting != null ) {
+                LockSupport.unpark( waiting );
+            }
+            waiter = waiter.next;
+        }
+    }
+
+    /**
+     * Unlinks all waiters which are done waiting. The stack is only ever read when the Future completes, so the nodes
+     * can be unlinked from anywhere in the stack, unlike the listener stack which gets reversed in place.
+     */
+    private void removeWaiters() {
+        boolean retry;
+        do {
+            retry = false;
+            Waiter previous = null;
+            Waiter waiter = this.waiters;
+            while ( waiter != null ) {
+                Waiter next = waiter.next;
+                if ( waiter.thread != null ) {
+                    previous = waiter;
+                } else if ( previous != null ) {
+                    previous.next = next;
+                    if ( previous.thread == null ) {
+                        //The previous waiter has been removed concurrently, start over
+                        retry = true;
+                        break;
+                    }
+                } else if ( !WAITERS_UPDATER.compareAndSet( this, waiter, next ) ) {
+                    retry = true;
                     break;
-                default: break;
+                }
+                waiter = next;
             }
+        } while ( retry );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private T report( Outcome outcome ) throws ExecutionException {
+        if ( outcome.state == FutureState.RESOLVED ) {
+            return (T) outcome.result;
+        }
+        if ( outcome.state == FutureState.CANCELLED ) {
+            throw (CancellationException) outcome.cause;
         }
 
-        //Notify waiting threads
-        this.notifyAll();
+        throw new ExecutionException( "Future failed to resolve", outcome.cause );
     }
 
     private enum FutureState {
-        PENDING, RESOLVED, FAILED
+        PENDING, RESOLVED, FAILED, CANCELLED
+    }
+
+    /**
+     * The immutable final state of a Future
+     */
+    private static final class Outcome {
+
+        private final FutureState state;
+        private final Object result;
+        private final Throwable cause;
+
+        private Outcome( FutureState state, Object result, Throwable cause ) {
+            this.state = state;
+            this.result = result;
+            this.cause = cause;
+        }
+    }
+
+    /**
+     * A node of the listener stack which gets called once the Future is done
+     *
+     * @param <T> The type of the result
+     */
+    private abstract static class Completion<T> {
+
+        private Completion<?> next;
+
+        //The Executor to call this Completion on, null to call it on the completing thread
+        private Executor executor;
+
+        abstract void complete( Outcome outcome );
+    }
+
+    private static final class ListenerCompletion<T> extends Completion<T> {
+
+        private final FutureListener<T> listener;
+
+        private ListenerCompletion( FutureListener<T> listener ) {
+            this.listener = listener;
+        }
+
+        @Override
+        @SuppressWarnings( "unchecked" )
+        void complete( Outcome outcome ) {
+            if ( outcome.state == FutureState.RESOLVED ) {
+                this.listener.onResolved( (T) outcome.result );
+            } else {
+                this.listener.onFailed( outcome.cause );
+            }
+        }
+    }
+
+    private static final class MapCompletion<T> extends Completion<T> {
+
+        private final Callback<T> callback;
+        private final Future<T> downstream;
+
+        private MapCompletion( Callback<T> callback, Future<T> downstream ) {
+            this.callback = callback;
+            this.downstream = downstream;
+        }
+
+        @Override
+        void complete( Outcome outcome ) {
+            apply( outcome, this.callback, this.downstream );
+        }
+
+        @SuppressWarnings( "unchecked" )
+        private static <T> void apply( Outcome outcome, Callback<T> callback, Future<T> downstream ) {
+            if ( outcome.state != FutureState.RESOLVED ) {
+                downstream.complete( outcome );
+                return;
+            }
+
+            try {
+                downstream.resolve( callback.invoke( (T) outcome.result ) );
+            } catch ( Throwable t ) {
+                downstream.fail( t );
+            }
+        }
+    }
+
+    private static final class FlatMapCompletion<T, R> extends Completion<T> {
+
+        private final Function<? super T, Future<R>> function;
+        private final Future<R> downstream;
+
+        private FlatMapCompletion( Function<? super T, Future<R>> function, Future<R> downstream ) {
+            this.function = function;
+            this.downstream = downstream;
+        }
+
+        @Override
+        void complete( Outcome outcome ) {
+            apply( outcome, this.function, this.downstream );
+        }
+
+        @SuppressWarnings( "unchecked" )
+        private static <T, R> void apply( Outcome outcome, Function<? super T, Future<R>> function, Future<R> downstream ) {
+            if ( outcome.state != FutureState.RESOLVED ) {
+                downstream.complete( outcome );
+                return;
+            }
+
+            Future<R> next;
+            try {
+                next = function.apply( (T) outcome.result );
+            } catch ( Throwable t ) {
+                downstream.fail( t );
+                return;
+            }
+
+            if ( next == null ) {
+                downstream.fail( new NullPointerException( "flatMap function returned null" ) );
+                return;
+            }
+
+            //Relay the Outcome of the inner Future as it is
+            Object current = next.state;
+            if ( current instanceof Outcome ) {
+                downstream.complete( (Outcome) current );
+            } else {
+                next.push( new RelayCompletion( downstream ) );
+            }
+        }
+    }
+
+    private static final class AcceptCompletion<T> extends Completion<T> {
+
+        private final Delegate<T> delegate;
+        private final Future<Void> downstream;
+
+        private AcceptCompletion( Delegate<T> delegate, Future<Void> downstream ) {
+            this.delegate = delegate;
+            this.downstream = downstream;
+        }
+
+        @Override
+        void complete( Outcome outcome ) {
+            apply( outcome, this.delegate, this.downstream );
+        }
+
+        @SuppressWarnings( "unchecked" )
+        private static <T> void apply( Outcome outcome, Delegate<T> delegate, Future<Void> downstream ) {
+            if ( outcome.state != FutureState.RESOLVED ) {
+                downstream.complete( outcome );
+                return;
+            }
+
+            try {
+                delegate.invoke( (T) outcome.result );
+            } catch ( Throwable t ) {
+                downstream.fail( t );
+                return;
+            }
+            downstream.complete( RESOLVED_NULL );
+        }
+    }
+
+    private static final class RecoverCompletion<T> extends Completion<T> {
+
+        private final Function<Throwable, ? extends T> function;
+        private final Future<T> downstream;
+
+        private RecoverCompletion( Function<Throwable, ? extends T> function, Future<T> downstream ) {
+            this.function = function;
+            this.downstream = downstream;
+        }
+
+        @Override
+        void complete( Outcome outcome ) {
+            apply( outcome, this.function, this.downstream );
+        }
+
+        private static <T> void apply( Outcome outcome, Function<Throwable, ? extends T> function, Future<T> downstream ) {
+            if ( outcome.state == FutureState.RESOLVED ) {
+                downstream.complete( outcome );
+                return;
+            }
+
+            try {
+                downstream.resolve( function.apply( outcome.cause ) );
+            } catch ( Throwable t ) {
+                downstream.fail( t );
+            }
+        }
+    }
+
+    private static final class WhenCompleteCompletion<T> extends Completion<T> {
+
+        private final BiConsumer<? super T, ? super Throwable> action;
+        private final Future<T> downstream;
+
+        private WhenCompleteCompletion( BiConsumer<? super T, ? super Throwable> action, Future<T> downstream ) {
+            this.action = action;
+            this.downstream = downstream;
+        }
+
+        @Override
+        void complete( Outcome outcome ) {
+            apply( outcome, this.action, this.downstream );
+        }
+
+        @SuppressWarnings( "unchecked" )
+        private static <T> void apply( Outcome outcome, BiConsumer<? super T, ? super Throwable> action, Future<T> downstream ) {
+            try {
+                action.accept( (T) outcome.result, outcome.cause );
+            } catch ( Throwable t ) {
+                if ( outcome.state == FutureState.RESOLVED ) {
+                    downstream.fail( t );
+                    return;
+                }
+            }
+            downstream.complete( outcome );
+        }
+    }
+
+    /**
+     * The shared bookkeeping of {@link #all(Collection)}, {@link #allSettled(Collection)} and
+     * {@link #firstSuccessful(Collection)}. A null results array means that the first successful result wins.
+     */
+    private static final class Aggregate {
+
+        private static final AtomicIntegerFieldUpdater<Aggregate> REMAINING_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater( Aggregate.class, "remaining" );
+
+        private final Future<?> downstream;
+        private final boolean failFast;
+        private final Object[] results;
+        private volatile int remaining;
+
+        private Aggregate( Future<?> downstream, int count, boolean failFast, Object[] results ) {
+            this.downstream = downstream;
+            this.failFast = failFast;
+            this.results = results;
+            this.remaining = count;
+        }
+
+        private void onComplete( int index, Outcome outcome ) {
+            if ( this.results == null ) {
+                //firstSuccessful: the first result wins, only the last failure counts
+                if ( outcome.state == FutureState.RESOLVED ) {
+                    this.downstream.complete( outcome );
+                } else if ( REMAINING_UPDATER.decrementAndGet( this ) == 0 ) {
+                    this.downstream.complete( outcome );
+                }
+                return;
+            }
+
+            if ( outcome.state == FutureState.RESOLVED ) {
+                this.results[index] = outcome.result;
+            } else if ( this.failFast ) {
+                this.downstream.complete( outcome );
+                return;
+            }
+
+            //The thread which counts down to zero sees all results written before
+            if ( REMAINING_UPDATER.decrementAndGet( this ) == 0 ) {
+                this.downstream.complete( new Outcome( FutureState.RESOLVED, Collections.unmodifiableList( Arrays.asList( this.results ) ), null ) );
+            }
+        }
+    }
+
+    private static final class AggregateCompletion extends Completion<Object> {
+
+        private final Aggregate aggregate;
+        private final int index;
+
+        private AggregateCompletion( Aggregate aggregate, int index ) {
+            this.aggregate = aggregate;
+            this.index = index;
+        }
+
+        @Override
+        void complete( Outcome outcome ) {
+            this.aggregate.onComplete( this.index, outcome );
+        }
+    }
+
+    /**
+     * Fails the Future when the timer fires and removes the timer entry when the Future completes first
+     */
+    private static final class TimeoutCompletion extends Completion<Object> implements Runnable {
+
+        private final Future<?> future;
+        private HashedWheelTimer.Timeout timeout;
+
+        private TimeoutCompletion( Future<?> future ) {
+            this.future = future;
+        }
+
+        @Override
+        public void run() {
+            this.future.complete( new Outcome( FutureState.FAILED, null, new TimeoutException( "Future took too long!" ) ) );
+        }
+
+        @Override
+        void complete( Outcome outcome ) {
+            this.timeout.cancel();
+        }
+    }
+
+    /**
+     * The CompletableFuture handed out by {@link #toCompletionStage()}
+     *
+     * @param <T> The type of the result
+     */
+    private static final class BridgeStage<T> extends CompletableFuture<T> {
+
+        //The Future this stage has been created for, null if it was already done at that time
+        private final Future<T> source;
+
+        private BridgeStage( Future<T> source ) {
+            this.source = source;
+        }
+
+        @SuppressWarnings( "unchecked" )
+        private void accept( Outcome outcome ) {
+            switch ( outcome.state ) {
+                case RESOLVED: super.complete( (T) outcome.result );
+                    break;
+                case CANCELLED: super.cancel( false );
+                    break;
+                default: super.completeExceptionally( outcome.cause );
+                    break;
+            }
+        }
+
+        @Override
+        public boolean complete( T value ) {
+            if ( this.source == null ) {
+                return super.complete( value );
+            }
+
+            //The source completes this stage through its StageCompletion
+            return this.source.complete( value == null ? RESOLVED_NULL : new Outcome( FutureState.RESOLVED, value, null ) );
+        }
+
+        @Override
+        public boolean completeExceptionally( Throwable cause ) {
+            if ( cause == null ) {
+                throw new NullPointerException( "cause" );
+            }
+
+            if ( this.source == null ) {
+                return super.completeExceptionally( cause );
+            }
+
+            return this.source.complete( new Outcome( FutureState.FAILED, null, cause ) );
+        }
+
+        @Override
+        public boolean cancel( boolean mayInterruptIfRunning ) {
+            if ( this.source != null ) {
+                this.source.cancel();
+            }
+            return super.cancel( mayInterruptIfRunning );
+        }
+
+        @Override
+        public void obtrudeValue( T value ) {
+            throw new UnsupportedOperationException( "The stage of a Future can't be overwritten" );
+        }
+
+        @Override
+        public void obtrudeException( Throwable cause ) {
+            throw new UnsupportedOperationException( "The stage of a Future can't be overwritten" );
+        }
+    }
+
+    private static final class StageCompletion<T> extends Completion<T> {
+
+        private final BridgeStage<T> stage;
+
+        private StageCompletion( BridgeStage<T> stage ) {
+            this.stage = stage;
+        }
+
+        @Override
+        void complete( Outcome outcome ) {
+            this.stage.accept( outcome );
+        }
+    }
+
+    /**
+     * Completes another Future with exactly the same Outcome
+     */
+    private static final class RelayCompletion extends Completion<Object> {
+
+        private final Future<?> downstream;
+
+        private RelayCompletion( Future<?> downstream ) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        void complete( Outcome outcome ) {
+            this.downstream.complete( outcome );
+        }
+    }
+
+    /**
+     * A node of the stack of threads blocked in get
+     */
+    private static final class Waiter {
+
+        private volatile Thread thread;
+        private volatile Waiter next;
+
+        private Waiter( Thread thread ) {
+            this.thread = thread;
+        }
     }
 }
@@ -0,0 +1,351 @@
+package net.devintia.commons.async;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A hashed timer wheel which runs a large amount of short tasks after a delay on one single worker thread.
+ * <p>
+ * The wheel is an array of buckets which each hold a doubly linked list of timeouts. Scheduling and cancelling a timeout only
+ * enqueues it into a lock-free queue which the worker drains once per tick, expiring a bucket only touches the timeouts
+ * within that bucket. Scheduling, cancelling and expiring are therefore O(1) no matter how many timeouts are pending. The
+ * accuracy of the timer is one tick.
+ *
+ * @author Digot
+ * @version 1.0
+ */
+public class HashedWheelTimer implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger( HashedWheelTimer.class.getName() );
+
+    //The maximum amount of new timeouts moved into the wheel per tick, so a huge burst can't stall expiration
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    private static final int STATE_INIT = 0;
+    private static final int STATE_STARTED = 1;
+    private static final int STATE_STOPPED = 2;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Thread worker;
+    private final AtomicInteger workerState = new AtomicInteger( STATE_INIT );
+    private final AtomicInteger pendingTimeouts = new AtomicInteger();
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+
+    private volatile long startNanos;
+
+    /**
+     * Creates a new timer wheel. The worker thread is started once the first timeout gets scheduled.
+     *
+     * @param threadName The name of the worker thread
+     * @param tickDuration The duration of one tick
+     * @param timeUnit The TimeUnit of the tick duration
+     * @param ticksPerWheel The amount of buckets of the wheel, gets rounded up to the next power of two
+     */
+    public HashedWheelTimer( String threadName, long tickDuration, TimeUnit timeUnit, int ticksPerWheel ) {
+        if ( tickDuration <= 0 ) {
+            throw new IllegalArgumentException( "tickDuration must be greater than 0" );
+        }
+        if ( ticksPerWheel <= 0 || ticksPerWheel > 1 << 30 ) {
+            throw new IllegalArgumentException( "ticksPerWheel must be between 1 and 2^30" );
+        }
+
+        int size = 1;
+        while ( size < ticksPerWheel ) {
+            size <<= 1;
+        }
+
+        this.tickNanos = timeUnit.toNanos( tickDuration );
+        this.wheel = new Bucket[size];
+        for ( int i = 0; i < size; i++ ) {
+            this.wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+
+        this.worker = new Thread( this::work, threadName );
+        this.worker.setDaemon( true );
+    }
+
+    /**
+     * Gets the timer wheel that is shared by all {@link Future}s of this library. It ticks every 10 milliseconds.
+     *
+     * @return the shared timer wheel
+     */
+    public static HashedWheelTimer shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * Schedules the given task to be run on the worker thread of this timer after the given delay
+     *
+     * @param task The task to run
+     * @param delay The delay after which the task should run
+     * @param timeUnit The TimeUnit of the delay
+     * @return the Timeout which can be used to cancel the task
+     */
+    public Timeout schedule( Runnable task, long delay, TimeUnit timeUnit ) {
+        if ( task == null ) {
+            throw new NullPointerException( "task" );
+        }
+
+        this.start();
+
+        long delayNanos = timeUnit.toNanos( delay );
+        long deadline = System.nanoTime() - this.startNanos + delayNanos;
+
+        //Huge delays like Long.MAX_VALUE are used to never time out, don't let them overflow into the past
+        if ( delayNanos > 0 && deadline < 0 ) {
+            deadline = Long.MAX_VALUE;
+        }
+
+        Timeout timeout = new Timeout( this, task, deadline );
+        this.pendingTimeouts.incrementAndGet();
+        this.scheduled.add( timeout );
+        return timeout;
+    }
+
+    /**
+     * @return The amount of timeouts which are neither expired nor cancelled yet
+     */
+    public int getPendingTimeouts() {
+        return this.pendingTimeouts.get();
+    }
+
+    /**
+     * Stops the worker thread. Timeouts which are still pending won't be run anymore.
+     */
+    @Override
+    public void close() {
+        if ( this.workerState.getAndSet( STATE_STOPPED ) == STATE_STARTED ) {
+            this.worker.interrupt();
+        }
+    }
+
+    private void start() {
+        switch ( this.workerState.get() ) {
+            case STATE_INIT:
+                if ( this.workerState.compareAndSet( STATE_INIT, STATE_STARTED ) ) {
+                    //0 marks the start time as not published yet, but System.nanoTime() may return it as well
+                    long now = System.nanoTime();
+                    this.startNanos = now == 0 ? 1 : now;
+                    this.worker.start();
+                }
+                break;
+            case STATE_STARTED:
+                break;
+            default:
+                throw new IllegalStateException( "Timer has already been stopped" );
+        }
+
+        //Wait until the start time got published by the thread which started the worker
+        while ( this.startNanos == 0 ) {
+            Thread.yield();
+        }
+    }
+
+    private void work() {
+        long tick = 0;
+        while ( this.workerState.get() == STATE_STARTED ) {
+            long deadline = this.waitForNextTick( tick );
+            if ( deadline < 0 ) {
+                break;
+            }
+
+            this.removeCancelled();
+            this.transferScheduled( tick );
+            this.wheel[(int) ( tick & this.mask )].expire( deadline );
+            tick++;
+        }
+    }
+
+    private long waitForNextTick( long tick ) {
+        long deadline = this.tickNanos * ( tick + 1 );
+        while ( true ) {
+            long now = System.nanoTime() - this.startNanos;
+            long sleepNanos = deadline - now;
+            if ( sleepNanos <= 0 ) {
+                return now;
+            }
+
+            try {
+                TimeUnit.NANOSECONDS.sleep( sleepNanos );
+            } catch ( InterruptedException e ) {
+                if ( this.workerState.get() == STATE_STOPPED ) {
+                    return -1;
+                }
+            }
+        }
+    }
+
+    private void transferScheduled( long tick ) {
+        for ( int i = 0; i < MAX_TRANSFERS_PER_TICK; i++ ) {
+            Timeout timeout = this.scheduled.poll();
+            if ( timeout == null ) {
+                return;
+            }
+            if ( timeout.state != Timeout.STATE_PENDING ) {
+                continue;
+            }
+
+            long ticks = timeout.deadline / this.tickNanos;
+            timeout.remainingRounds = ( ticks - tick ) / this.wheel.length;
+
+            //Deadlines in the past go into the current bucket
+            long target = Math.max( ticks, tick );
+            this.wheel[(int) ( target & this.mask )].add( timeout );
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ( ( timeout = this.cancelled.poll() ) != null ) {
+            if ( timeout.bucket != null ) {
+                timeout.bucket.remove( timeout );
+            }
+            timeout.task = null;
+        }
+    }
+
+    /**
+     * A task which has been scheduled on a {@link HashedWheelTimer}
+     */
+    public static final class Timeout {
+
+        private static final int STATE_PENDING = 0;
+        private static final int STATE_CANCELLED = 1;
+        private static final int STATE_EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater( Timeout.class, "state" );
+
+        private final HashedWheelTimer timer;
+        private final long deadline;
+        private Runnable task;
+        private volatile int state;
+
+        //Only accessed by the worker thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout( HashedWheelTimer timer, Runnable task, long deadline ) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels this Timeout so its task won't be run
+         *
+         * @return true if the Timeout was cancelled by this call, false if it already expired or got cancelled before
+         */
+        public boolean cancel() {
+            if ( !STATE_UPDATER.compareAndSet( this, STATE_PENDING, STATE_CANCELLED ) ) {
+                return false;
+            }
+
+            this.timer.pendingTimeouts.decrementAndGet();
+            this.timer.cancelled.add( this );
+            return true;
+        }
+
+        /**
+         * @return Whether this Timeout has been cancelled
+         */
+        public boolean isCancelled() {
+            return this.state == STATE_CANCELLED;
+        }
+
+        /**
+         * @return Whether the task of this Timeout has been run
+         */
+        public boolean isExpired() {
+            return this.state == STATE_EXPIRED;
+        }
+
+        private void expire() {
+            if ( !STATE_UPDATER.compareAndSet( this, STATE_PENDING, STATE_EXPIRED ) ) {
+                return;
+            }
+
+            this.timer.pendingTimeouts.decrementAndGet();
+            Runnable toRun = this.task;
+            this.task = null;
+            try {
+                toRun.run();
+            } catch ( Throwable t ) {
+                LOGGER.log( Level.WARNING, "Exception while running a timeout task", t );
+            }
+        }
+    }
+
+    /**
+     * A doubly linked list of Timeouts which is only accessed by the worker thread
+     */
+    private static final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        private void add( Timeout timeout ) {
+            timeout.bucket = this;
+            if ( this.head == null ) {
+                this.head = this.tail = timeout;
+            } else {
+                this.tail.next = timeout;
+                timeout.prev = this.tail;
+                this.tail = timeout;
+            }
+        }
+
+        private Timeout remove( Timeout timeout ) {
+            Timeout next = timeout.next;
+            if ( timeout.prev != null ) {
+                timeout.prev.next = next;
+            }
+            if ( next != null ) {
+                next.prev = timeout.prev;
+            }
+            if ( timeout == this.head ) {
+                this.head = next;
+            }
+            if ( timeout == this.tail ) {
+                this.tail = timeout.prev;
+            }
+
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            return next;
+        }
+
+        private void expire( long now ) {
+            Timeout timeout = this.head;
+            while ( timeout != null ) {
+                if ( timeout.state != Timeout.STATE_PENDING ) {
+                    timeout = this.remove( timeout );
+                } else if ( timeout.remainingRounds <= 0 && timeout.deadline <= now ) {
+                    Timeout next = this.remove( timeout );
+                    timeout.expire();
+                    timeout = next;
+                } else {
+                    timeout.remainingRounds--;
+                    timeout = timeout.next;
+                }
+            }
+        }
+    }
+
+    private static final class SharedHolder {
+
+        private static final HashedWheelTimer INSTANCE = new HashedWheelTimer( "Devintia Future Timer", 10, TimeUnit.MILLISECONDS, 512 );
+    }
+}
@@ -0,0 +1,144 @@
+package net.devintia.commons.async;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations in nanoseconds with HDR-style log-linear buckets.
+ * <p>
+ * Every power of two is split into 32 linear sub buckets, so every recorded value is off by at most ~3% from its bucket
+ * bounds. Values above ~18 minutes are clamped. Recording is striped over several bucket arrays which are picked by the
+ * id of the recording thread, so concurrent threads rarely touch the same cache lines. Recording never allocates.
+ *
+ * @author Digot
+ * @version 1.0
+ */
+public class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    //2^40 ns is roughly 18 minutes, nobody times anything longer with this
+    private static final int MAX_VALUE_BITS = 40;
+    private static final long MAX_VALUE = ( 1L << MAX_VALUE_BITS ) - 1;
+
+    private static final int BUCKET_COUNT = ( MAX_VALUE_BITS - SUB_BUCKET_BITS + 1 ) * SUB_BUCKET_COUNT;
+
+    //Extra slots behind the buckets of every stripe
+    private static final int SUM_SLOT = BUCKET_COUNT;
+    private static final int MIN_SLOT = BUCKET_COUNT + 1;
+    private static final int MAX_SLOT = BUCKET_COUNT + 2;
+    private static final int STRIPE_LENGTH = BUCKET_COUNT + 3;
+
+    private final AtomicLongArray[] stripes;
+    private final int mask;
+
+    /**
+     * Creates a new histogram with one stripe per available processor (at most 16)
+     */
+    public Histogram() {
+        int count = 1;
+        int processors = Math.min( 16, Runtime.getRuntime().availableProcessors() );
+        while ( count < processors ) {
+            count <<= 1;
+        }
+
+        this.stripes = new AtomicLongArray[count];
+        for ( int i = 0; i < count; i++ ) {
+            this.stripes[i] = newStripe();
+        }
+        this.mask = count - 1;
+    }
+
+    /**
+     * Records one value
+     *
+     * @param nanos The duration in nanoseconds, negative values are recorded as 0
+     */
+    public void record( long nanos ) {
+        long value = nanos < 0 ? 0 : Math.min( nanos, MAX_VALUE );
+        AtomicLongArray stripe = this.stripes[(int) Thread.currentThread().getId() & this.mask];
+
+        stripe.getAndIncrement( indexOf( value ) );
+        stripe.getAndAdd( SUM_SLOT, value );
+
+        long min;
+        while ( value < ( min = stripe.get( MIN_SLOT ) ) && !stripe.compareAndSet( MIN_SLOT, min, value ) ) {
+            //Retry
+        }
+        long max;
+        while ( value > ( max = stripe.get( MAX_SLOT ) ) && !stripe.compareAndSet( MAX_SLOT, max, value ) ) {
+            //Retry
+        }
+    }
+
+    /**
+     * Creates a snapshot of all values recorded until now. Values which are recorded while the snapshot is taken may or
+     * may not be part of it.
+     *
+     * @return the snapshot
+     */
+    public HistogramSnapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long sum = 0;
+        long min = Long.MAX_VALUE;
+        long max = 0;
+
+        for ( AtomicLongArray stripe : this.stripes ) {
+            for ( int i = 0; i < BUCKET_COUNT; i++ ) {
+                counts[i] += stripe.get( i );
+            }
+            sum += stripe.get( SUM_SLOT );
+            min = Math.min( min, stripe.get( MIN_SLOT ) );
+            max = Math.max( max, stripe.get( MAX_SLOT ) );
+        }
+
+        return new HistogramSnapshot( counts, sum, min, max );
+    }
+
+    /**
+     * Removes all recorded values. Values which are recorded while resetting may or may not survive.
+     */
+    public void reset() {
+        for ( AtomicLongArray stripe : this.stripes ) {
+            for ( int i = 0; i < STRIPE_LENGTH; i++ ) {
+                stripe.set( i, i == MIN_SLOT ? Long.MAX_VALUE : 0 );
+            }
+        }
+    }
+
+    static int indexOf( long value ) {
+        if ( value < SUB_BUCKET_COUNT ) {
+            return (int) value;
+        }
+
+        int msb = 63 - Long.numberOfLeadingZeros( value );
+        int group = msb - SUB_BUCKET_BITS + 1;
+        int sub = (int) ( value >>> ( msb - SUB_BUCKET_BITS ) ) & ( SUB_BUCKET_COUNT - 1 );
+        return group * SUB_BUCKET_COUNT + sub;
+    }
+
+    static long lowerBoundOf( int index ) {
+        int group = index >>> SUB_BUCKET_BITS;
+        if ( group == 0 ) {
+            return index;
+        }
+
+        long sub = index & ( SUB_BUCKET_COUNT - 1 );
+        return ( SUB_BUCKET_COUNT + sub ) << ( group - 1 );
+    }
+
+    static long upperBoundOf( int index ) {
+        int group = index >>> SUB_BUCKET_BITS;
+        if ( group == 0 ) {
+            return index;
+        }
+
+        return lowerBoundOf( index ) + ( 1L << ( group - 1 ) ) - 1;
+    }
+
+    private static AtomicLongArray newStripe() {
+        AtomicLongArray stripe = new AtomicLongArray( STRIPE_LENGTH );
+        stripe.set( MIN_SLOT, Long.MAX_VALUE );
+        return stripe;
+    }
+}
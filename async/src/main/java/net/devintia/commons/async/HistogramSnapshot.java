@@ -0,0 +1,116 @@
+package net.devintia.commons.async;
+
+/**
+ * An immutable copy of the values of a {@link Histogram} at one point in time. All values are in nanoseconds.
+ *
+ * @author Digot
+ * @version 1.0
+ */
+public class HistogramSnapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long min;
+    private final long max;
+
+    HistogramSnapshot( long[] counts, long sum, long min, long max ) {
+        long total = 0;
+        for ( long bucket : counts ) {
+            total += bucket;
+        }
+
+        this.counts = counts;
+        this.count = total;
+        this.sum = sum;
+        this.min = total == 0 ? 0 : min;
+        this.max = max;
+    }
+
+    /**
+     * @return The amount of recorded values
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * @return The sum of all recorded values
+     */
+    public long getSum() {
+        return this.sum;
+    }
+
+    /**
+     * @return The smallest recorded value, 0 if nothing has been recorded
+     */
+    public long getMin() {
+        return this.min;
+    }
+
+    /**
+     * @return The biggest recorded value, 0 if nothing has been recorded
+     */
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * @return The average of all recorded values, 0 if nothing has been recorded
+     */
+    public double getMean() {
+        return this.count == 0 ? 0 : (double) this.sum / this.count;
+    }
+
+    /**
+     * Gets the value below which the given percentage of all recorded values lies. The result is the upper bound of the
+     * bucket the percentile falls into, capped by the biggest recorded value.
+     *
+     * @param percentile The percentile between 0 and 100
+     * @return the value at the percentile, 0 if nothing has been recorded
+     */
+    public long getPercentile( double percentile ) {
+        if ( this.count == 0 ) {
+            return 0;
+        }
+
+        double clamped = Math.max( 0, Math.min( 100, percentile ) );
+        long rank = Math.max( 1, (long) Math.ceil( clamped / 100 * this.count ) );
+
+        long seen = 0;
+        for ( int i = 0; i < this.counts.length; i++ ) {
+            seen += this.counts[i];
+            if ( seen >= rank ) {
+                return Math.max( this.min, Math.min( this.max, Histogram.upperBoundOf( i ) ) );
+            }
+        }
+        return this.max;
+    }
+
+    /**
+     * @return The median
+     */
+    public long getP50() {
+        return this.getPercentile( 50 );
+    }
+
+    /**
+     * @return The 99th percentile
+     */
+    public long getP99() {
+        return this.getPercentile( 99 );
+    }
+
+    /**
+     * @return The 99.9th percentile
+     */
+    public long getP999() {
+        return this.getPercentile( 99.9 );
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + this.count + ", mean=" + (long) this.getMean() + "ns, p50=" + this.getP50() + "ns, p99=" + this.getP99()
+                + "ns, p999=" + this.getP999() + "ns, max=" + this.max + "ns";
+    }
+}
@@ -1,15 +1,25 @@
 package net.devintia.commons.async;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
- * Used to measure how long the execution of a code block takes
+ * Used to measure how long the execution of a code block takes.
+ * <p>
+ * Measurements are taken with {@link System#nanoTime()} and recorded into a lock-free {@link Histogram} per topic, so
+ * timers are cheap enough to stay enabled in production. The collected values are exported with
+ * {@link #report(TimerReporter)}.
  *
  * @author Digot
  * @version 1.0
  */
 public class Timer implements AutoCloseable {
 
-    private final long startMs;
-    private final String topic;
+    private static final ConcurrentMap<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    private final long startNanos;
+    private final Histogram histogram;
 
     /**
      * The default constructor for the timer
@@ -17,12 +27,56 @@ public class Timer implements AutoCloseable {
      * @param topic The topic of the measure
      */
     public Timer ( String topic ) {
-        this.topic = topic;
-        this.startMs = System.currentTimeMillis();
+        this( histogram( topic ) );
+    }
+
+    /**
+     * Creates a timer which records into the given histogram. Hot paths can keep the histogram of their topic around to
+     * skip the topic lookup.
+     *
+     * @param histogram The histogram to record into
+     */
+    public Timer ( Histogram histogram ) {
+        this.histogram = histogram;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Gets the histogram of the given topic and creates it if it doesn't exist yet
+     *
+     * @param topic The topic of the measures
+     * @return the histogram of the topic
+     */
+    public static Histogram histogram ( String topic ) {
+        Histogram histogram = HISTOGRAMS.get( topic );
+        if ( histogram == null ) {
+            histogram = HISTOGRAMS.computeIfAbsent( topic, key -> new Histogram() );
+        }
+        return histogram;
+    }
+
+    /**
+     * Passes a snapshot of every topic to the given reporter
+     *
+     * @param reporter The reporter to export the measures to
+     */
+    public static void report ( TimerReporter reporter ) {
+        for ( Map.Entry<String, Histogram> entry : HISTOGRAMS.entrySet() ) {
+            reporter.report( entry.getKey(), entry.getValue().snapshot() );
+        }
+    }
+
+    /**
+     * Removes all values recorded so far from every topic
+     */
+    public static void reset ( ) {
+        for ( Histogram histogram : HISTOGRAMS.values() ) {
+            histogram.reset();
+        }
     }
 
     @Override
     public void close ( ) {
-        System.out.println( this.topic + " took " + ( System.currentTimeMillis() - this.startMs ) + "ms" );
+        this.histogram.record( System.nanoTime() - this.startNanos );
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package net.devintia.commons.async;
+
+/**
+ * Receives the measurements of every {@link Timer} topic when {@link Timer#report(TimerReporter)} is called.
+ *
+ * @author Digot
+ * @version 1.0
+ */
+public interface TimerReporter {
+
+    /**
+     * Called once per topic with the values recorded for it
+     *
+     * @param topic The topic of the measurements
+     * @param snapshot The recorded values in nanoseconds
+     */
+    void report( String topic, HistogramSnapshot snapshot );
+
+}
@@ -0,0 +1,43 @@
+package net.devintia.commons.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Entry point of the benchmark jar. Accepts the usual JMH command line options, but writes the results as JSON to
+ * <code>jmh-result.json</code> unless another result format or file is given, so the results of two releases can be diffed.
+ * <p>
+ * Example: <code>java -jar benchmarks/target/benchmarks.jar -rff jmh-result-1.0.json Future</code>
+ *
+ * @author Digot
+ * @version 1.0
+ */
+public class BenchmarkMain {
+
+    public static void main( String[] args ) throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions commandLine = new CommandLineOptions( args );
+        if ( commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers()
+                || commandLine.shouldListResultFormats() || commandLine.shouldListWithParams() ) {
+            //Let JMH handle the informational options itself
+            org.openjdk.jmh.Main.main( args );
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent( commandLine );
+        if ( !commandLine.getResultFormat().hasValue() ) {
+            options.resultFormat( ResultFormatType.JSON );
+        }
+        if ( !commandLine.getResult().hasValue() ) {
+            options.result( "jmh-result.json" );
+        }
+
+        new Runner( options.build() ).run();
+    }
+}
@@ -0,0 +1,106 @@
+package net.devintia.commons.benchmarks;
+
+import net.devintia.commons.bukkit.command.CommandArguments;
+import net.devintia.commons.bukkit.command.CommandHandler;
+import net.devintia.commons.bukkit.command.CommandInfo;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CommandHandler#onCommand(CommandSender, Command, String, String[])} for a root command and for sub commands a few
+ * levels deep, against a headless server.
+ *
+ * @author Digot
+ * @version 1.0
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class CommandDispatchBenchmark {
+
+    private static final String[] ROOT_ARGS = { "x", "y" };
+    private static final String[] DEEP_ARGS = { "one", "two", "three", "four", "x", "y" };
+    private static final String[] UNKNOWN_SUB_ARGS = { "one", "two", "nope", "x", "y", "z", "w" };
+
+    private CommandHandler commandHandler;
+    private CommandSender sender;
+    private Command command;
+
+    @Setup
+    public void setup() {
+        this.commandHandler = new CommandHandler( HeadlessServer.plugin() );
+        this.commandHandler.register( new Commands() );
+        this.sender = HeadlessServer.console();
+
+        //The handler only passes the command on to the CommandArguments
+        this.command = new Command( "bench" ) {
+            @Override
+            public boolean execute( CommandSender sender, String label, String[] args ) {
+                return false;
+            }
+        };
+    }
+
+    @Benchmark
+    public boolean root() {
+        return this.commandHandler.onCommand( this.sender, this.command, "bench", ROOT_ARGS );
+    }
+
+    @Benchmark
+    public boolean deepSubCommand() {
+        return this.commandHandler.onCommand( this.sender, this.command, "bench", DEEP_ARGS );
+    }
+
+    @Benchmark
+    public boolean unknownSubCommand() {
+        return this.commandHandler.onCommand( this.sender, this.command, "bench", UNKNOWN_SUB_ARGS );
+    }
+
+    /**
+     * The commands dispatched by this benchmark, each one just counts its invocations
+     */
+    public static class Commands {
+
+        private int invocations;
+
+        @CommandInfo( name = "bench", perm = "" )
+        public void root( CommandArguments args ) {
+            this.invocations += args.getNumArgs();
+        }
+
+        @CommandInfo( name = "bench.one", perm = "" )
+        public void one( CommandArguments args ) {
+            this.invocations += args.getNumArgs();
+        }
+
+        @CommandInfo( name = "bench.one.two", perm = "" )
+        public void two( CommandArguments args ) {
+            this.invocations += args.getNumArgs();
+        }
+
+        @CommandInfo( name = "bench.one.two.three", perm = "" )
+        public void three( CommandArguments args ) {
+            this.invocations += args.getNumArgs();
+        }
+
+        @CommandInfo( name = "bench.one.two.three.four", perm = "" )
+        public void four( CommandArguments args ) {
+            this.invocations += args.getNumArgs();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package net.devintia.commons.benchmarks;
+
+import net.devintia.commons.async.Future;
+import net.devintia.commons.async.FutureListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completion of {@link Future}s, once on a single thread and once while other threads poll and register listeners on the
+ * same Future.
+ *
+ * @author Digot
+ * @version 1.0
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class FutureBenchmark {
+
+    private static final Integer RESULT = 42;
+
+    @State( Scope.Thread )
+    public static class Listeners {
+
+        FutureListener<Integer> listener;
+
+        @Setup
+        public void setup( Blackhole blackhole ) {
+            this.listener = new FutureListener<Integer>() {
+                @Override
+                public void onResolved( Integer arg ) {
+                    blackhole.consume( arg );
+                }
+
+                @Override
+                public void onFailed( Throwable cause ) {
+                    blackhole.consume( cause );
+                }
+            };
+        }
+    }
+
+    @State( Scope.Group )
+    public static class Shared {
+
+        volatile Future<Integer> current = Future.createNull();
+    }
+
+    @Benchmark
+    public Future<Integer> uncontendedResolve() {
+        Future<Integer> future = new Future<>();
+        future.resolve( RESULT );
+        return future;
+    }
+
+    @Benchmark
+    public Future<Integer> uncontendedResolveWithListener( Listeners listeners ) {
+        Future<Integer> future = new Future<>();
+        future.addListener( listeners.listener );
+        future.resolve( RESULT );
+        return future;
+    }
+
+    @Benchmark
+    public Future<Integer> uncontendedMapChain() {
+        Future<Integer> future = new Future<>();
+        Future<Integer> chained = future.map( value -> value + 1 ).map( value -> value * 2 );
+        future.resolve( RESULT );
+        return chained;
+    }
+
+    @Benchmark
+    @Group( "contended" )
+    @GroupThreads( 1 )
+    public Future<Integer> contendedCompleter( Shared shared ) {
+        Future<Integer> future = new Future<>();
+        shared.current = future;
+        future.resolve( RESULT );
+        return future;
+    }
+
+    @Benchmark
+    @Group( "contended" )
+    @GroupThreads( 2 )
+    public boolean contendedPoller( Shared shared ) {
+        return shared.current.isDone();
+    }
+
+    @Benchmark
+    @Group( "contended" )
+    @GroupThreads( 1 )
+    public void contendedListener( Shared shared, Listeners listeners ) {
+        shared.current.addListener( listeners.listener );
+    }
+}
@@ -0,0 +1,124 @@
+package net.devintia.commons.benchmarks;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.SimpleCommandMap;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.SimplePluginManager;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Minimal stand-ins for the Bukkit server, a plugin and a console sender, so the Bukkit based code can be benchmarked
+ * without starting a server. Every method which is not needed returns the default value of its return type.
+ *
+ * @author Digot
+ * @version 1.0
+ */
+final class HeadlessServer {
+
+    private static final Logger LOGGER = Logger.getLogger( "HeadlessServer" );
+    private static final Server SERVER;
+    private static final Plugin PLUGIN;
+    private static final CommandSender SENDER;
+
+    static {
+        LOGGER.setLevel( Level.OFF );
+
+        SimplePluginManager[] pluginManager = new SimplePluginManager[1];
+        SERVER = proxy( Server.class, ( proxy, method, args ) -> {
+            switch ( method.getName() ) {
+                case "getLogger": return LOGGER;
+                case "getPluginManager": return pluginManager[0];
+                case "getOnlinePlayers": return Collections.emptyList();
+                case "isPrimaryThread": return true;
+                case "getName": return "HeadlessServer";
+                case "getVersion":
+                case "getBukkitVersion": return "benchmark";
+                default: return defaultValue( method.getReturnType() );
+            }
+        } );
+        pluginManager[0] = new SimplePluginManager( SERVER, new SimpleCommandMap( SERVER ) );
+        Bukkit.setServer( SERVER );
+
+        PLUGIN = proxy( Plugin.class, ( proxy, method, args ) -> {
+            switch ( method.getName() ) {
+                case "getServer": return SERVER;
+                case "getName": return "Benchmark";
+                case "getLogger": return LOGGER;
+                case "isEnabled": return true;
+                default: return defaultValue( method.getReturnType() );
+            }
+        } );
+
+        SENDER = proxy( CommandSender.class, ( proxy, method, args ) -> {
+            switch ( method.getName() ) {
+                case "getServer": return SERVER;
+                case "getName": return "CONSOLE";
+                case "hasPermission":
+                case "isOp": return true;
+                default: return defaultValue( method.getReturnType() );
+            }
+        } );
+    }
+
+    private HeadlessServer() {
+    }
+
+    static Server server() {
+        return SERVER;
+    }
+
+    static Plugin plugin() {
+        return PLUGIN;
+    }
+
+    static CommandSender console() {
+        return SENDER;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private static <T> T proxy( Class<T> type, InvocationHandler handler ) {
+        return (T) Proxy.newProxyInstance( HeadlessServer.class.getClassLoader(), new Class<?>[]{ type }, ( proxy, method, args ) -> {
+            switch ( method.getName() ) {
+                case "hashCode": return System.identityHashCode( proxy );
+                case "equals": return proxy == args[0];
+                case "toString": return type.getSimpleName() + "@headless";
+                default: return handler.invoke( proxy, method, args );
+            }
+        } );
+    }
+
+    private static Object defaultValue( Class<?> type ) {
+        if ( !type.isPrimitive() || type == void.class ) {
+            return null;
+        }
+        if ( type == boolean.class ) {
+            return false;
+        }
+        if ( type == char.class ) {
+            return '\0';
+        }
+        if ( type == long.class ) {
+            return 0L;
+        }
+        if ( type == float.class ) {
+            return 0F;
+        }
+        if ( type == double.class ) {
+            return 0D;
+        }
+        if ( type == byte.class ) {
+            return (byte) 0;
+        }
+        if ( type == short.class ) {
+            return (short) 0;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,149 @@
+package net.devintia.commons.benchmarks;
+
+import net.devintia.commons.i18n.LocaleManager;
+import net.devintia.commons.i18n.localization.ResourceLoadFailedException;
+import net.devintia.commons.i18n.localization.ResourceNotLoadedException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LocaleManager#translate(Locale, String, Object...)} for keys that are found in the requested locale, keys that
+ * fall back to the default locale and keys which are missing completely. Those are all served by the template cache
+ * after the first call, the cold benchmarks drop the cached template on every call: once by invalidating the whole
+ * cache and once by reloading a locale in which the key changed.
+ *
+ * @author Digot
+ * @version 1.0
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class TranslationBenchmark {
+
+    private static final Locale LOADED = Locale.US;
+    private static final Locale NOT_LOADED = Locale.CANADA_FRENCH;
+
+    @Param( { "yml", "properties" } )
+    public String format;
+
+    @Param( { "5000" } )
+    public int keys;
+
+    private LocaleManager localeManager;
+    private File directory;
+    private String key;
+    private String bundle;
+    private String changedBundle;
+    private boolean changed;
+
+    @Setup
+    public void setup() throws IOException, ResourceLoadFailedException {
+        this.directory = new File( System.getProperty( "java.io.tmpdir" ), "devintia-bench-" + System.nanoTime() );
+        if ( !this.directory.mkdirs() ) {
+            throw new IOException( "Could not create " + this.directory );
+        }
+
+        this.key = "messages.key" + ( this.keys / 2 );
+        this.localeManager = new LocaleManager( TranslationBenchmark.class.getClassLoader() );
+        this.bundle = this.writeBundle( "en_US", "Hello", "Hello" );
+        this.changedBundle = this.writeBundle( "en_US-changed", "Hello", "Hi" );
+        this.localeManager.load( Locale.GERMANY, this.writeBundle( "de_DE", "Hallo", "Hallo" ) );
+        this.localeManager.load( LOADED, this.bundle );
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.localeManager.cleanup();
+
+        File[] files = this.directory.listFiles();
+        if ( files != null ) {
+            for ( File file : files ) {
+                file.delete();
+            }
+        }
+        this.directory.delete();
+    }
+
+    @Benchmark
+    public String hit() {
+        return this.localeManager.translate( LOADED, this.key, "Player", 42 );
+    }
+
+    @Benchmark
+    public String staticHit() {
+        return this.localeManager.translate( LOADED, "messages.static" );
+    }
+
+    @Benchmark
+    public String localeFallback() {
+        return this.localeManager.translate( NOT_LOADED, this.key, "Player", 42 );
+    }
+
+    @Benchmark
+    public Object missingKey() {
+        //The exception variant, so a missing key is measured without printing a stack trace per call
+        try {
+            return this.localeManager.translateWithException( LOADED, "messages.missing", "Player" );
+        } catch ( ResourceNotLoadedException | ResourceLoadFailedException e ) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public String coldHit() {
+        //Drops all compiled templates, so every call looks the key up in the Resources and compiles it again
+        this.localeManager.setDefaultLocale( Locale.GERMANY );
+        return this.localeManager.translate( LOADED, this.key, "Player", 42 );
+    }
+
+    @Benchmark
+    public String reloadChangedKey() throws ResourceLoadFailedException {
+        //Alternates between two versions which only differ in the benchmarked key, so only its template gets dropped.
+        //This includes parsing the whole locale file.
+        this.changed = !this.changed;
+        this.localeManager.load( LOADED, this.changed ? this.changedBundle : this.bundle );
+        return this.localeManager.translate( LOADED, this.key, "Player", 42 );
+    }
+
+    private String writeBundle( String name, String greeting, String keyGreeting ) throws IOException {
+        File file = new File( this.directory, name + "." + this.format );
+        try ( PrintWriter writer = new PrintWriter( file, "UTF-8" ) ) {
+            if ( "yml".equals( this.format ) ) {
+                writer.println( "messages:" );
+                writer.println( "  static: '" + greeting + " world'" );
+                for ( int i = 0; i < this.keys; i++ ) {
+                    writer.println( "  key" + i + ": '" + this.greeting( i, greeting, keyGreeting ) + " {0}, you have {1} coins'" );
+                }
+            } else {
+                writer.println( "messages.static=" + greeting + " world" );
+                for ( int i = 0; i < this.keys; i++ ) {
+                    writer.println( "messages.key" + i + "=" + this.greeting( i, greeting, keyGreeting ) + " {0}, you have {1} coins" );
+                }
+            }
+        }
+        return "file://" + file.getCanonicalPath();
+    }
+
+    private String greeting( int index, String greeting, String keyGreeting ) {
+        return index == this.keys / 2 ? keyGreeting : greeting;
+    }
+}
@@ -0,0 +1,331 @@
+package net.devintia.commons.i18n;
+
+import net.devintia.commons.async.AsyncRunner;
+import net.devintia.commons.async.FutureListener;
+import net.devintia.commons.async.HashedWheelTimer;
+import net.devintia.commons.i18n.localization.ResourceLoadFailedException;
+import org.bukkit.Bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Watches a locale spec file and all locale files it references and reloads them when they change.
+ * <p>
+ * Changes are debounced, so an editor which writes a file in several steps only causes one reload. Only the file which
+ * changed gets parsed again, and only if its content hash is different from the one of the loaded version. A changed
+ * spec file loads the Locales which have been added or moved to another file. Locales which have been removed from the
+ * spec file stay loaded, their file is just no longer watched.
+ * <p>
+ * The watcher waits for changes on a daemon thread of its own, since that thread is blocked for as long as the watcher
+ * is open.
+ */
+class LocaleFileWatcher implements AutoCloseable {
+    //How long a file has to stay untouched before it gets reloaded
+    private static final long DEBOUNCE_MILLIS = 250;
+
+    //How many files get parsed at the same time
+    private static final int MAX_CONCURRENT_RELOADS = 2;
+
+    private final LocaleManager localeManager;
+    private final AsyncRunner runner;
+    private final File specFile;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    //The watched locale files and their Locale
+    private final Map<Path, Locale> localeFiles = new ConcurrentHashMap<>();
+
+    //The content hashes of the loaded versions of all watched files
+    private final Map<Path, String> hashes = new ConcurrentHashMap<>();
+
+    //The pending debounced reload per file
+    private final Map<Path, HashedWheelTimer.Timeout> pending = new ConcurrentHashMap<>();
+
+    private final Set<Path> directories = new HashSet<>();
+    private volatile boolean closed;
+
+    /**
+     * Registers the given spec file and the files of its Locales and hashes their current content. Create the watcher
+     * before the Locales get loaded: a file which changes while it is being loaded is then reloaded once more instead
+     * of being taken as loaded. Changes are only processed after {@link #start()}, until then they are queued.
+     * <p>
+     * Changed files are parsed on a runner of this watcher, so reloads waiting for the LocaleManager never block the
+     * runner which loads a spec.
+     *
+     * @param localeManager The LocaleManager to load changed Locales into
+     * @param path          The path of the spec file
+     * @throws IOException if the file system can not be watched
+     */
+    LocaleFileWatcher( LocaleManager localeManager, String path ) throws IOException {
+        this.localeManager = localeManager;
+        this.specFile = new File( path ).getCanonicalFile();
+        this.watchService = this.specFile.toPath().getFileSystem().newWatchService();
+        this.runner = new AsyncRunner( "LocaleFileWatcher Reloader", MAX_CONCURRENT_RELOADS );
+        this.thread = new Thread( this::waitForChanges, "LocaleFileWatcher " + this.specFile.getName() );
+        this.thread.setDaemon( true );
+
+        try {
+            watch( this.specFile.toPath() );
+            hashes.put( this.specFile.toPath(), hash( this.specFile.toPath() ) );
+
+            for ( Map.Entry<Path, Locale> entry : readSpec().entrySet() ) {
+                track( entry.getKey(), entry.getValue() );
+            }
+        } catch ( ParseException e ) {
+            close();
+            throw new IOException( "Could not read " + path, e );
+        } catch ( IOException | RuntimeException e ) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Start to process the changes of the watched files
+     */
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Waits for file changes until this watcher gets closed
+     */
+    private void waitForChanges() {
+        while ( !closed ) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch ( ClosedWatchServiceException e ) {
+                return;
+            }
+
+            Path directory = (Path) key.watchable();
+            for ( WatchEvent<?> event : key.pollEvents() ) {
+                if ( event.kind() == StandardWatchEventKinds.OVERFLOW ) {
+                    //Events got lost, check every file, unchanged ones are skipped by their hash
+                    for ( Path file : hashes.keySet() ) {
+                        schedule( file );
+                    }
+                    continue;
+                }
+
+                Path file = directory.resolve( (Path) event.context() );
+                if ( hashes.containsKey( file ) ) {
+                    schedule( file );
+                }
+            }
+
+            key.reset();
+        }
+    }
+
+    /**
+     * Schedules the reload of the file, a reload which is still pending for it gets replaced
+     */
+    private void schedule( final Path file ) {
+        HashedWheelTimer.Timeout timeout = HashedWheelTimer.shared().schedule( () -> runner.run( () -> {
+            reload( file );
+            return null;
+        } ), DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS );
+
+        HashedWheelTimer.Timeout previous = pending.put( file, timeout );
+        if ( previous != null ) {
+            previous.cancel();
+        }
+    }
+
+    /**
+     * Reloads the file if its content changed. Reloads are serialized so an older version never replaces a newer one.
+     */
+    private synchronized void reload( Path file ) {
+        if ( closed ) {
+            return;
+        }
+
+        String hash;
+        try {
+            hash = hash( file );
+        } catch ( IOException e ) {
+            //The file is being replaced or has been deleted, the next event catches up
+            return;
+        }
+
+        if ( hash.equals( hashes.get( file ) ) ) {
+            return;
+        }
+
+        if ( file.equals( specFile.toPath() ) ) {
+            hashes.put( file, hash );
+            reloadSpec();
+            return;
+        }
+
+        Locale locale = localeFiles.get( file );
+        if ( locale == null ) {
+            return;
+        }
+
+        try {
+            localeManager.load( locale, "file://" + file );
+            hashes.put( file, hash );
+        } catch ( ResourceLoadFailedException e ) {
+            Bukkit.getLogger().log( Level.WARNING, "Could not reload " + file, e );
+        }
+    }
+
+    /**
+     * Reads the spec file again and loads all Locales which are new or point to another file now
+     */
+    private void reloadSpec() {
+        Map<Path, Locale> files;
+        try {
+            files = readSpec();
+        } catch ( IOException | ParseException e ) {
+            Bukkit.getLogger().log( Level.WARNING, "Could not reload " + specFile, e );
+            return;
+        }
+
+        Map<Locale, String> changed = new LinkedHashMap<>();
+        for ( Map.Entry<Path, Locale> entry : files.entrySet() ) {
+            if ( !entry.getValue().equals( localeFiles.get( entry.getKey() ) ) ) {
+                changed.put( entry.getValue(), "file://" + entry.getKey() );
+            }
+        }
+
+        //Stop watching files which are no longer referenced
+        for ( Path file : localeFiles.keySet() ) {
+            if ( !files.containsKey( file ) ) {
+                localeFiles.remove( file );
+                hashes.remove( file );
+            }
+        }
+
+        for ( Map.Entry<Path, Locale> entry : files.entrySet() ) {
+            try {
+                track( entry.getKey(), entry.getValue() );
+            } catch ( IOException e ) {
+                Bukkit.getLogger().log( Level.WARNING, "Could not watch " + entry.getKey(), e );
+            }
+        }
+
+        if ( changed.isEmpty() ) {
+            return;
+        }
+
+        //Don't wait for the result, the parsing runs on the same runner as this reload
+        localeManager.getResourceManager().loadAll( changed, runner ).addListener( new FutureListener<Map<Locale, Throwable>>() {
+            @Override
+            public void onResolved( Map<Locale, Throwable> failures ) {
+                for ( Map.Entry<Locale, Throwable> entry : failures.entrySet() ) {
+                    Bukkit.getLogger().log( Level.WARNING, "Could not load " + entry.getKey(), entry.getValue() );
+                }
+            }
+
+            @Override
+            public void onFailed( Throwable cause ) {
+                Bukkit.getLogger().log( Level.WARNING, "Could not reload " + specFile, cause );
+            }
+        } );
+    }
+
+    /**
+     * Read the locale files out of the spec file
+     *
+     * @return The canonical paths of all locale files with their Locale
+     */
+    private Map<Path, Locale> readSpec() throws IOException, ParseException {
+        Map<Path, Locale> files = new HashMap<>();
+        for ( LocaleSpec spec : new LocaleSpecScanner( specFile ).read() ) {
+            if ( spec.getLatestVersion() != null && spec.getLatestVersion().getFile() != null ) {
+                files.put( spec.getLatestVersion().getFile().getCanonicalFile().toPath(), spec.getLocale() );
+            }
+        }
+
+        return files;
+    }
+
+    /**
+     * Start to watch a locale file. Its current content counts as loaded, so this has to be called before it gets
+     * loaded.
+     */
+    private void track( Path file, Locale locale ) throws IOException {
+        watch( file );
+        localeFiles.put( file, locale );
+
+        if ( !hashes.containsKey( file ) ) {
+            try {
+                hashes.put( file, hash( file ) );
+            } catch ( IOException e ) {
+                //Does not exist yet, it gets loaded once it is created
+                hashes.put( file, "" );
+            }
+        }
+    }
+
+    /**
+     * Register the directory of the file at the WatchService
+     */
+    private void watch( Path file ) throws IOException {
+        Path directory = file.getParent();
+        synchronized ( directories ) {
+            if ( directory != null && directories.add( directory ) ) {
+                directory.register( watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY );
+            }
+        }
+    }
+
+    private static String hash( Path file ) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance( "SHA-256" );
+            return Base64.getEncoder().encodeToString( digest.digest( Files.readAllBytes( file ) ) );
+        } catch ( NoSuchAlgorithmException e ) {
+            //Every JVM has to support SHA-256
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * Stop watching, reloads which are still pending are dropped
+     */
+    @Override
+    public void close() {
+        closed = true;
+        thread.interrupt();
+
+        for ( HashedWheelTimer.Timeout timeout : pending.values() ) {
+            timeout.cancel();
+        }
+
+        try {
+            watchService.close();
+        } catch ( IOException e ) {
+            Bukkit.getLogger().log( Level.WARNING, "Could not close the WatchService", e );
+        }
+
+        runner.close();
+    }
+}
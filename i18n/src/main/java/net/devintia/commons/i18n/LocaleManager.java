@@ -2,27 +2,55 @@ package net.devintia.commons.i18n;
 
 import lombok.Getter;
 import lombok.Setter;
+import net.devintia.commons.async.AsyncRunner;
+import net.devintia.commons.async.Future;
+import net.devintia.commons.async.FutureListener;
+import net.devintia.commons.i18n.format.MessageTemplate;
+import net.devintia.commons.i18n.localization.ResourceChangeListener;
 import net.devintia.commons.i18n.localization.ResourceLoadFailedException;
 import net.devintia.commons.i18n.localization.ResourceLoader;
 import net.devintia.commons.i18n.localization.ResourceManager;
 import net.devintia.commons.i18n.localization.ResourceNotLoadedException;
+import net.devintia.commons.i18n.localization.loader.BinaryResourceLoader;
 import net.devintia.commons.i18n.localization.loader.PropertiesResourceLoader;
 import net.devintia.commons.i18n.localization.loader.YamlResourceLoader;
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.TextComponent;
+import net.md_5.bungee.chat.ComponentSerializer;
 import org.apache.commons.lang.Validate;
 import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.io.File;
 import java.io.IOException;
-import java.text.MessageFormat;
 import java.text.ParseException;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
 
 public class LocaleManager {
+    //Cached for keys which could not be found in any Locale of the fallback chain
+    private static final MessageTemplate MISSING = MessageTemplate.compile( "", Locale.ROOT );
+
+    //How many misses are cached at most per generation, like the MissingKeyReport
+    private static final int MAX_CACHED_MISSES = 4096;
+
     //The ResourceManager to use for this LocaleManager
+    @Getter
     private ResourceManager resourceManager;
 
     //The fallback Locale to use
@@ -34,6 +62,24 @@ public class LocaleManager {
     @Setter
     private boolean useDefaultLocaleForMessages = true;
 
+    //Parses Locales in parallel for the async init
+    private final AsyncRunner loadRunner = new AsyncRunner( "LocaleManager Loader", Runtime.getRuntime().availableProcessors() );
+
+    //Reloads changed locale files after initFromLocaleSpec, or all of them periodically, guarded by the watcherLock
+    private final Object watcherLock = new Object();
+    private LocaleFileWatcher watcher;
+    private BukkitTask refreshTask;
+
+    //Collects the keys which could not be translated
+    @Getter
+    private final MissingKeyReport missingKeyReport = new MissingKeyReport( Logger.getLogger( LocaleManager.class.getName() ) );
+
+    //The resolved Locale of every online Player
+    private final PlayerLocaleCache playerLocales = new PlayerLocaleCache( this );
+
+    //The compiled templates per Locale and key, the whole cache gets swapped out when Resources change
+    private volatile TemplateCache templates = new TemplateCache( -1 );
+
     /**
      * Construct a new LocaleManager for this Plugin
      *
@@ -60,38 +106,128 @@ public class LocaleManager {
     }
 
     /**
-     * Init / Load all Locales which could be found in the given spec file. This refreshes the languages all 5 minutes
+     * Init / Load all Locales which could be found in the given spec file. Afterwards the spec file and all locale files
+     * are watched and reloaded as soon as they change. If the file system can't be watched the languages get refreshed
+     * all 5 minutes instead. Locales which get removed from the spec file stay loaded.
      *
      * @param plugin          Since BungeeCord uses a global Task Handler you need a plugin to register tasks
-     * @param executorService Which should be use to reschedule the refresh interval
+     * @param executorService Which should be use to reschedule the refresh interval if the files can't be watched
      * @param path            The path of the file to query.
      */
     public void initFromLocaleSpec( Plugin plugin, BukkitScheduler executorService, final String path ) {
-        initFromLocaleSpecWithoutAutorefresh( path );
-        executorService.runTaskTimerAsynchronously( plugin, () -> initFromLocaleSpecWithoutAutorefresh( path ), 5 * 60 * 20, 5 * 60 * 20 );
+        //Stop reloading the files of the previous spec before its Locales get replaced
+        closeWatcher();
+
+        //Watch the files before they get loaded, so changes during the load can't be missed
+        LocaleFileWatcher newWatcher = null;
+        try {
+            newWatcher = new LocaleFileWatcher( this, path );
+        } catch ( IOException e ) {
+            e.printStackTrace();
+        }
+
+        //Don't hold any lock while waiting for the loader threads
+        try {
+            initFromLocaleSpecWithoutAutorefresh( path );
+        } catch ( RuntimeException e ) {
+            if ( newWatcher != null ) {
+                newWatcher.close();
+            }
+            throw e;
+        }
+
+        synchronized ( watcherLock ) {
+            //Another init may have started its watcher in the meantime
+            closeWatcher();
+
+            if ( newWatcher != null ) {
+                watcher = newWatcher;
+                watcher.start();
+                return;
+            }
+
+            refreshTask = executorService.runTaskTimerAsynchronously( plugin, () -> initFromLocaleSpecAsync( path ).addListener( new FutureListener<Map<Locale, Throwable>>() {
+                @Override
+                public void onResolved( Map<Locale, Throwable> failures ) {
+                    printFailures( failures );
+                }
+
+                @Override
+                public void onFailed( Throwable cause ) {
+                    cause.printStackTrace();
+                }
+            } ), 5 * 60 * 20, 5 * 60 * 20 );
+        }
     }
 
     /**
-     * Init / Load all Locales which could be found in the given spec file.
+     * Stop the file watcher or the refresh task if there is one
+     */
+    private void closeWatcher() {
+        synchronized ( watcherLock ) {
+            if ( watcher != null ) {
+                watcher.close();
+                watcher = null;
+            }
+
+            if ( refreshTask != null ) {
+                refreshTask.cancel();
+                refreshTask = null;
+            }
+        }
+    }
+
+    /**
+     * Init / Load all Locales which could be found in the given spec file. The Locales are loaded in parallel, this
+     * blocks until all of them are published.
      *
      * @param path The path of the file to query.
      */
     public void initFromLocaleSpecWithoutAutorefresh( String path ) {
-        LocaleSpecScanner scanner = new LocaleSpecScanner( new File( path ) );
         try {
-            List<LocaleSpec> specs = scanner.read();
-            for ( LocaleSpec spec : specs ) {
-                try {
-                    load( spec.getLocale(), "file://" + spec.getLatestVersion().getFile().getCanonicalPath() );
-                } catch ( ResourceLoadFailedException e ) {
-                    e.printStackTrace();
-                }
-            }
-        } catch ( IOException | ParseException e ) {
+            printFailures( initFromLocaleSpecAsync( path ).get() );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        } catch ( ExecutionException | TimeoutException e ) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Init / Load all Locales which could be found in the given spec file without blocking. The spec file is read and
+     * all Locales are parsed in parallel on a pool bounded to the amount of processors. Once every Locale is done the
+     * successfully loaded ones are published at once, so lookups either see all of the new Locales or none of them.
+     *
+     * @param path The path of the file to query.
+     * @return A Future which resolves with the causes of all Locales which could not be loaded, or fails if the spec
+     * file could not be read
+     */
+    public Future<Map<Locale, Throwable>> initFromLocaleSpecAsync( final String path ) {
+        //Validate the input
+        Validate.notNull( path );
+
+        final ResourceManager resourceManager = this.resourceManager;
+        final AsyncRunner runner = this.loadRunner;
+        return runner.run( () -> {
+            //Read the spec file, it only lists the Locales so this is cheap
+            Map<Locale, String> params = new LinkedHashMap<>();
+            for ( LocaleSpec spec : new LocaleSpecScanner( new File( path ) ).read() ) {
+                params.put( spec.getLocale(), "file://" + spec.getLatestVersion().getFile().getCanonicalPath() );
+            }
+
+            return params;
+        } ).flatMap( params -> resourceManager.loadAll( params, runner ) );
+    }
+
+    /**
+     * Print the causes of all Locales which could not be loaded
+     */
+    private void printFailures( Map<Locale, Throwable> failures ) {
+        for ( Throwable cause : failures.values() ) {
+            cause.printStackTrace();
+        }
+    }
+
     /**
      * Construct a new LocaleManager for the given Classloader
      *
@@ -101,6 +237,24 @@ public class LocaleManager {
         resourceManager = new ResourceManager( classLoader );
         resourceManager.registerLoader( new YamlResourceLoader() );
         resourceManager.registerLoader( new PropertiesResourceLoader() );
+        resourceManager.registerLoader( new BinaryResourceLoader() );
+        resourceManager.setPinnedLocale( defaultLocale );
+        resourceManager.addChangeListener( new ResourceChangeListener() {
+            @Override
+            public void onChange( Locale locale, Set<String> keys ) {
+                invalidateTemplates( keys );
+            }
+
+            @Override
+            public void onReplace( Locale locale ) {
+                invalidateTemplates( locale );
+            }
+
+            @Override
+            public void onRestore( Locale locale ) {
+                invalidateTemplates( locale );
+            }
+        } );
     }
 
     /**
@@ -119,31 +273,113 @@ public class LocaleManager {
     }
 
     /**
-     * Gets the correct String out of the Locale. If the locale given is not loaded by the underlying ResourceManager
-     * it takes the set default Locale to read the String from.
+     * Get the compiled template for the key. Templates are compiled once per Locale and key and reused until a Resource
+     * gets loaded or reloaded. Keys which could not be found are remembered as well, so repeated misses are cheap.
      *
-     * @param locale Locale which should be read for
-     * @param key    The key which should be looked up
-     * @return The String stored in the ResourceLoader
-     * @throws ResourceNotLoadedException  If the Resource was not registered
-     * @throws ResourceLoadFailedException If the Resource was cleared out and could not be reloaded into the Cache
+     * @param locale         Locale which should be read for, it falls back to its language and the default Locale
+     * @param translationKey The key in the ResourceLoader which should be compiled
+     * @return The compiled template or null if no Locale of the fallback chain contains the key
      */
-    private String getTranslationString( Locale locale, String key ) throws ResourceNotLoadedException, ResourceLoadFailedException {
-        return resourceManager.get( locale, key );
+    private MessageTemplate getTemplate( Locale locale, String translationKey ) {
+        //Templates compiled before Locales were added or removed are stale
+        long modifications = resourceManager.getModificationCount();
+        TemplateCache templates = this.templates;
+        long generation = resourceManager.getGeneration();
+        if ( templates.generation != generation ) {
+            this.templates = templates = new TemplateCache( generation );
+        }
+
+        LocaleTemplates localeTemplates = templates.locales.get( locale );
+        if ( localeTemplates != null ) {
+            MessageTemplate template = localeTemplates.templates.get( translationKey );
+            if ( template != null ) {
+                if ( template == MISSING ) {
+                    return null;
+                }
+
+                //Keep the Resource the template came from recently used, it is not read on a hit
+                resourceManager.recordAccess( template.getLocale() );
+                return template;
+            }
+        } else {
+            localeTemplates = templates.locales.computeIfAbsent( locale, key -> new LocaleTemplates( key, defaultLocale ) );
+        }
+
+        //Walk the fallback chain, every Locale also checks its language only Resource
+        MessageTemplate template = MISSING;
+        for ( Locale chainLocale : localeTemplates.chain ) {
+            String translationString = resourceManager.getOrNull( chainLocale, translationKey );
+            if ( translationString != null ) {
+                template = MessageTemplate.compile( translationString, chainLocale );
+                break;
+            }
+        }
+
+        //Remember only a bounded amount of misses, keys built at runtime could fill the cache otherwise
+        if ( template == MISSING && templates.missing.incrementAndGet() > MAX_CACHED_MISSES ) {
+            return null;
+        }
+
+        localeTemplates.templates.put( translationKey, template );
+
+        //The message may have changed while compiling and the change listener may have run before the put
+        if ( resourceManager.getModificationCount() != modifications ) {
+            localeTemplates.templates.remove( translationKey, template );
+        }
+
+        return template != MISSING ? template : null;
     }
 
     /**
-     * Check if the given Locale has been loaded by the ResourceManager. If not return the default Locale
+     * Same as {@link #getTemplate(Locale, String)} but throws if the key could not be found
      *
-     * @param locale Locale which should be checked
-     * @return The default locale or the param
+     * @throws ResourceNotLoadedException when no Locale of the fallback chain contains the key
      */
-    private Locale checkForDefault( Locale locale ) {
-        if ( !resourceManager.isLoaded( locale ) ) {
-            return defaultLocale;
+    private MessageTemplate getExistingTemplate( Locale locale, String translationKey ) throws ResourceNotLoadedException {
+        MessageTemplate template = getTemplate( locale, translationKey );
+        if ( template == null ) {
+            throw new ResourceNotLoadedException( "The key(" + translationKey + ") is not present in the Locale " + locale.toString() + " or its fallbacks" );
         }
 
-        return locale;
+        return template;
+    }
+
+    /**
+     * Drop all compiled templates. Lookups which are still running on the old Resources only fill the old map.
+     */
+    private void invalidateTemplates() {
+        templates = new TemplateCache( -1 );
+    }
+
+    /**
+     * Drop the compiled templates of the given keys in every Locale, since other Locales may have fallen back to the
+     * Locale whose keys changed
+     *
+     * @param keys The keys which changed
+     */
+    private void invalidateTemplates( Set<String> keys ) {
+        for ( LocaleTemplates localeTemplates : templates.locales.values() ) {
+            localeTemplates.templates.keySet().removeAll( keys );
+        }
+    }
+
+    /**
+     * Drop the compiled templates of every requested Locale whose fallback chain contains the given Locale, because
+     * all of its messages may have changed or lookups fell back past it while it was evicted
+     *
+     * @param locale The Locale which has been replaced or restored
+     */
+    private void invalidateTemplates( Locale locale ) {
+        boolean languageOnly = locale.getCountry().isEmpty() && locale.getVariant().isEmpty();
+        ConcurrentMap<Locale, LocaleTemplates> locales = templates.locales;
+        for ( Map.Entry<Locale, LocaleTemplates> entry : locales.entrySet() ) {
+            for ( Locale chainLocale : entry.getValue().chain ) {
+                if ( chainLocale.equals( locale ) || ( languageOnly && chainLocale.getLanguage().equals( locale.getLanguage() ) ) ) {
+                    locales.remove( entry.getKey(), entry.getValue() );
+                    break;
+                }
+            }
+        }
     }
 
     /**
@@ -158,6 +394,8 @@ public class LocaleManager {
         Validate.isTrue( resourceManager.isLoaded( locale ), "Locale has not been loaded" );
 
         defaultLocale = locale;
+        resourceManager.setPinnedLocale( locale );
+        invalidateTemplates();
     }
 
     /**
@@ -177,29 +415,12 @@ public class LocaleManager {
         Validate.notNull( locale, "Locale can not be null" );
         Validate.notNull( translationKey, "The translationKey can not be null" );
 
-        //Get the resource and translate
-        Locale playerLocale = checkForDefault( locale );
-
-        String translationString;
-        try {
-            translationString = getTranslationString( playerLocale, translationKey );
-        } catch ( ResourceNotLoadedException | ResourceLoadFailedException e ) {
-            translationString = getTranslationString( playerLocale = defaultLocale, translationKey );
-        }
-
-        // Check for untranslated messages
-        if ( translationString == null ) {
-            throw new ResourceNotLoadedException( "The key(" + translationKey + ") is not present in the Locale " + playerLocale.toString() );
-        }
-
-        MessageFormat msgFormat = new MessageFormat( translationString );
-        msgFormat.setLocale( playerLocale );
-        return msgFormat.format( args );
+        return getExistingTemplate( locale, translationKey ).format( args );
     }
 
     /**
-     * Same as {@link #translateWithException(Locale, String, Object...)} but ignores exceptions
-     * Returns %translationkey% if an exception was caught
+     * Same as {@link #translateWithException(Locale, String, Object...)} but doesn't throw.
+     * Returns %translationkey% if the key could not be found, the key gets recorded in the {@link MissingKeyReport}
      *
      * @param locale         -
      * @param translationKey -
@@ -207,13 +428,17 @@ public class LocaleManager {
      * @return -
      */
     public String translate( Locale locale, String translationKey, Object... args ) {
-        try {
-            return translateWithException( locale, translationKey, args );
-        } catch ( ResourceNotLoadedException | ResourceLoadFailedException e ) {
-            e.printStackTrace();
+        //Validate the input
+        Validate.notNull( locale, "Locale can not be null" );
+        Validate.notNull( translationKey, "The translationKey can not be null" );
+
+        MessageTemplate template = getTemplate( locale, translationKey );
+        if ( template == null ) {
+            missingKeyReport.record( locale, translationKey );
+            return "%" + translationKey + "%";
         }
 
-        return "%" + translationKey + "%";
+        return template.format( args );
     }
 
     /**
@@ -235,19 +460,44 @@ public class LocaleManager {
         Validate.notNull( translationKey, "The translationKey can not be null" );
 
         //Get the resource and translate
-        String translationString = getTranslationString( defaultLocale, translationKey );
-        if ( translationString == null ) {
-            throw new ResourceNotLoadedException( "The key(" + translationKey + ") is not present in the Locale " + defaultLocale.toString() );
+        return getExistingTemplate( getLocale( commandSender ), translationKey ).format( args );
+    }
+
+    /**
+     * Get the loaded Locale the CommandSender gets translated to. Players get the first loaded Locale out of the
+     * fallback chain of their client locale, everyone else gets the default Locale.
+     *
+     * @param commandSender CommandSender to get the Locale for
+     * @return The resolved Locale
+     */
+    public Locale getLocale( CommandSender commandSender ) {
+        //Validate the CommandSender
+        Validate.notNull( commandSender, "Commandsender can not be null" );
+
+        if ( commandSender instanceof Player ) {
+            return playerLocales.get( (Player) commandSender );
         }
 
-        MessageFormat msgFormat = new MessageFormat( translationString );
-        msgFormat.setLocale( defaultLocale );
-        return msgFormat.format( args );
+        return defaultLocale;
     }
 
     /**
-     * Same as {@link #translateWithException(CommandSender, String, Object...)} but ignores exceptions
-     * Returns %translationkey% if an exception was caught
+     * Register the per Player Locale cache as Listener, so the resolved Locale of every Player is kept until they quit.
+     * Without it the Locale of a Player gets resolved again on every translation.
+     *
+     * @param plugin The plugin to register the Listener for
+     */
+    public void registerPlayerLocaleCache( Plugin plugin ) {
+        //Validate the input
+        Validate.notNull( plugin );
+
+        plugin.getServer().getPluginManager().registerEvents( playerLocales, plugin );
+        playerLocales.setRegistered();
+    }
+
+    /**
+     * Same as {@link #translateWithException(CommandSender, String, Object...)} but doesn't throw.
+     * Returns %translationkey% if the key could not be found, the key gets recorded in the {@link MissingKeyReport}
      *
      * @param commandSender  -
      * @param translationKey -
@@ -255,13 +505,133 @@ public class LocaleManager {
      * @return -
      */
     public String translate( CommandSender commandSender, String translationKey, Object... args ) {
-        try {
-            return translateWithException( commandSender, translationKey, args );
-        } catch ( ResourceNotLoadedException | ResourceLoadFailedException e ) {
-            e.printStackTrace();
+        //Validate the CommandSender
+        Validate.notNull( commandSender, "Commandsender can not be null" );
+
+        return translate( getLocale( commandSender ), translationKey, args );
+    }
+
+    /**
+     * Translate the key into chat components. The legacy color codes of the message are only parsed once per Locale and
+     * key. Returns %translationkey% if the key could not be found, the key gets recorded in the {@link MissingKeyReport}
+     *
+     * @param locale         Locale which should be used to translate
+     * @param translationKey The key in the ResourceLoader which should be translated
+     * @param args           The Arguments which will be inserted as literal text, color codes in them are not parsed
+     * @return New components which the caller may modify
+     */
+    public BaseComponent[] translateComponents( Locale locale, String translationKey, Object... args ) {
+        //Validate the input
+        Validate.notNull( locale, "Locale can not be null" );
+        Validate.notNull( translationKey, "The translationKey can not be null" );
+
+        MessageTemplate template = getTemplate( locale, translationKey );
+        if ( template == null ) {
+            missingKeyReport.record( locale, translationKey );
+            return TextComponent.fromLegacyText( "%" + translationKey + "%" );
         }
 
-        return "%" + translationKey + "%";
+        return template.toComponents( args );
+    }
+
+    /**
+     * Same as {@link #translateComponents(Locale, String, Object...)} for the Locale of the CommandSender
+     *
+     * @param commandSender  The CommandSender whose Locale should be used
+     * @param translationKey The key in the ResourceLoader which should be translated
+     * @param args           The Arguments which will be inserted as literal text, color codes in them are not parsed
+     * @return New components which the caller may modify
+     */
+    public BaseComponent[] translateComponents( CommandSender commandSender, String translationKey, Object... args ) {
+        //Validate the CommandSender
+        Validate.notNull( commandSender, "Commandsender can not be null" );
+
+        return translateComponents( getLocale( commandSender ), translationKey, args );
+    }
+
+    /**
+     * Translate the key into the JSON form of its chat components, as used for chat, action bars and books. The JSON of
+     * the message is only serialized once per Locale and key, the arguments are spliced into it.
+     * Returns %translationkey% if the key could not be found, the key gets recorded in the {@link MissingKeyReport}
+     *
+     * @param locale         Locale which should be used to translate
+     * @param translationKey The key in the ResourceLoader which should be translated
+     * @param args           The Arguments which will be inserted as literal text, color codes in them are not parsed
+     * @return The JSON String
+     */
+    public String translateJson( Locale locale, String translationKey, Object... args ) {
+        //Validate the input
+        Validate.notNull( locale, "Locale can not be null" );
+        Validate.notNull( translationKey, "The translationKey can not be null" );
+
+        MessageTemplate template = getTemplate( locale, translationKey );
+        if ( template == null ) {
+            missingKeyReport.record( locale, translationKey );
+            return ComponentSerializer.toString( TextComponent.fromLegacyText( "%" + translationKey + "%" ) );
+        }
+
+        return template.toJson( args );
+    }
+
+    /**
+     * Same as {@link #translateJson(Locale, String, Object...)} for the Locale of the CommandSender
+     *
+     * @param commandSender  The CommandSender whose Locale should be used
+     * @param translationKey The key in the ResourceLoader which should be translated
+     * @param args           The Arguments which will be inserted as literal text, color codes in them are not parsed
+     * @return The JSON String
+     */
+    public String translateJson( CommandSender commandSender, String translationKey, Object... args ) {
+        //Validate the CommandSender
+        Validate.notNull( commandSender, "Commandsender can not be null" );
+
+        return translateJson( getLocale( commandSender ), translationKey, args );
+    }
+
+    /**
+     * Translate the key for every given CommandSender. The message gets rendered only once per resolved Locale, so the
+     * cost depends on the amount of different Locales and not on the amount of CommandSenders.
+     * Failed translations are %translationkey% like in {@link #translate(CommandSender, String, Object...)}
+     *
+     * @param commandSenders The CommandSenders to translate for
+     * @param translationKey The key of the message
+     * @param args           The arguments of the message
+     * @return The translated message of every CommandSender, in the order of the given Collection
+     */
+    public Map<CommandSender, String> translateForAll( Collection<? extends CommandSender> commandSenders, String translationKey, Object... args ) {
+        //Validate the input
+        Validate.notNull( commandSenders, "The commandSenders can not be null" );
+        Validate.notNull( translationKey, "The translationKey can not be null" );
+
+        //Render every Locale once and hand it to all of its CommandSenders
+        Map<Locale, String> rendered = new HashMap<>();
+        Map<CommandSender, String> messages = new LinkedHashMap<>();
+        for ( CommandSender commandSender : commandSenders ) {
+            Locale locale = getLocale( commandSender );
+
+            String message = rendered.get( locale );
+            if ( message == null ) {
+                message = translate( locale, translationKey, args );
+                rendered.put( locale, message );
+            }
+
+            messages.put( commandSender, message );
+        }
+
+        return messages;
+    }
+
+    /**
+     * Send the translated message to every given CommandSender. See {@link #translateForAll(Collection, String, Object...)}
+     *
+     * @param commandSenders The CommandSenders to send the message to
+     * @param translationKey The key of the message
+     * @param args           The arguments of the message
+     */
+    public void broadcast( Collection<? extends CommandSender> commandSenders, String translationKey, Object... args ) {
+        for ( Map.Entry<CommandSender, String> entry : translateForAll( commandSenders, translationKey, args ).entrySet() ) {
+            entry.getKey().sendMessage( entry.getValue() );
+        }
     }
 
     /**
@@ -296,7 +666,40 @@ public class LocaleManager {
      * Be sure to remove resources loaded and to remove refs
      */
     public synchronized void cleanup() {
+        closeWatcher();
+
+        loadRunner.close();
+        playerLocales.clear();
         resourceManager.cleanup();
         resourceManager = null;
+        invalidateTemplates();
+    }
+
+    /**
+     * The compiled templates of one generation of the ResourceManager
+     */
+    private static final class TemplateCache {
+        private final long generation;
+        private final ConcurrentMap<Locale, LocaleTemplates> locales = new ConcurrentHashMap<>();
+
+        //How many misses have been cached, it is not decremented when entries get invalidated
+        private final AtomicInteger missing = new AtomicInteger();
+
+        private TemplateCache( long generation ) {
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * The compiled templates of one requested Locale
+     */
+    private static final class LocaleTemplates {
+        //The Locales a lookup falls back to, in this order
+        private final Locale[] chain;
+        private final ConcurrentMap<String, MessageTemplate> templates = new ConcurrentHashMap<>();
+
+        private LocaleTemplates( Locale locale, Locale defaultLocale ) {
+            this.chain = locale.equals( defaultLocale ) ? new Locale[]{ locale } : new Locale[]{ locale, defaultLocale };
+        }
     }
 }
@@ -0,0 +1,156 @@
+package net.devintia.commons.i18n;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Collects the keys which could not be translated, together with how often they have been requested.
+ * <p>
+ * Every missing key is only reported once, and only a few new keys per minute get logged, so a missing key in a
+ * message which is sent many times per second doesn't flood the log. The whole report can be dumped on demand.
+ */
+public class MissingKeyReport {
+    //How many new missing keys get logged per minute
+    private static final int WARNINGS_PER_MINUTE = 10;
+
+    //How many keys are tracked at most, so generated keys can't fill the memory
+    private static final int MAX_KEYS = 4096;
+
+    private final Logger logger;
+
+    //How often every missing key has been requested, per Locale
+    private final ConcurrentMap<Locale, ConcurrentMap<String, LongAdder>> missing = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+
+    //The state of the log rate limit
+    private final AtomicLong windowStart = new AtomicLong();
+    private final AtomicInteger warnings = new AtomicInteger();
+    private final LongAdder suppressed = new LongAdder();
+
+    /**
+     * Create a new report which logs to the given Logger
+     *
+     * @param logger The Logger to report new missing keys to
+     */
+    public MissingKeyReport( Logger logger ) {
+        this.logger = logger;
+    }
+
+    /**
+     * Record a lookup of a key which could not be found. This doesn't allocate anything for keys which have been
+     * recorded before.
+     *
+     * @param locale The Locale which has been requested
+     * @param key    The key which could not be found
+     */
+    public void record( Locale locale, String key ) {
+        ConcurrentMap<String, LongAdder> keys = missing.get( locale );
+        if ( keys == null ) {
+            keys = missing.computeIfAbsent( locale, l -> new ConcurrentHashMap<>() );
+        }
+
+        LongAdder count = keys.get( key );
+        if ( count == null ) {
+            if ( size.get() >= MAX_KEYS ) {
+                dropped.increment();
+                return;
+            }
+
+            LongAdder newCount = new LongAdder();
+            count = keys.putIfAbsent( key, newCount );
+            if ( count == null ) {
+                count = newCount;
+                size.incrementAndGet();
+                warn( locale, key );
+            }
+        }
+
+        count.increment();
+    }
+
+    /**
+     * Log a new missing key if the rate limit allows it
+     */
+    private void warn( Locale locale, String key ) {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if ( now - start > TimeUnit.MINUTES.toNanos( 1 ) && windowStart.compareAndSet( start, now ) ) {
+            warnings.set( 0 );
+        }
+
+        if ( warnings.incrementAndGet() > WARNINGS_PER_MINUTE ) {
+            suppressed.increment();
+            return;
+        }
+
+        long suppressedKeys = suppressed.sumThenReset();
+        logger.warning( "The key " + key + " is missing in the Locale " + locale + " and its fallbacks"
+                + ( suppressedKeys > 0 ? " (" + suppressedKeys + " other missing keys have not been logged)" : "" ) );
+    }
+
+    /**
+     * Get all missing keys with the amount of lookups per Locale
+     *
+     * @return A copy of the report
+     */
+    public Map<Locale, Map<String, Long>> getMissingKeys() {
+        Map<Locale, Map<String, Long>> report = new HashMap<>();
+        for ( Map.Entry<Locale, ConcurrentMap<String, LongAdder>> entry : missing.entrySet() ) {
+            Map<String, Long> keys = new HashMap<>();
+            for ( Map.Entry<String, LongAdder> keyEntry : entry.getValue().entrySet() ) {
+                keys.put( keyEntry.getKey(), keyEntry.getValue().sum() );
+            }
+
+            report.put( entry.getKey(), Collections.unmodifiableMap( keys ) );
+        }
+
+        return Collections.unmodifiableMap( report );
+    }
+
+    /**
+     * Log the whole report
+     */
+    public void dump() {
+        Map<Locale, Map<String, Long>> report = getMissingKeys();
+        if ( report.isEmpty() ) {
+            logger.info( "No translation keys are missing" );
+            return;
+        }
+
+        StringBuilder builder = new StringBuilder( "Missing translation keys:" );
+        for ( Map.Entry<Locale, Map<String, Long>> entry : report.entrySet() ) {
+            builder.append( "\n  " ).append( entry.getKey() ).append( ':' );
+            for ( Map.Entry<String, Long> keyEntry : new TreeMap<>( entry.getValue() ).entrySet() ) {
+                builder.append( "\n    " ).append( keyEntry.getKey() ).append( " (" ).append( keyEntry.getValue() ).append( "x)" );
+            }
+        }
+
+        long droppedLookups = dropped.sum();
+        if ( droppedLookups > 0 ) {
+            builder.append( "\n  " ).append( droppedLookups ).append( " lookups of further keys have not been tracked" );
+        }
+
+        logger.log( Level.WARNING, builder.toString() );
+    }
+
+    /**
+     * Forget all recorded keys, for example after the Locales have been fixed
+     */
+    public void clear() {
+        missing.clear();
+        size.set( 0 );
+        dropped.reset();
+    }
+}
@@ -0,0 +1,125 @@
+package net.devintia.commons.i18n;
+
+import net.devintia.commons.i18n.localization.ResourceManager;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the loaded Locale every online Player gets translated to.
+ * <p>
+ * The locale String the client sends is parsed and resolved to the first loaded Locale of its fallback chain (the
+ * Locale itself, its language only, the default Locale) once. The entry is resolved again when the client changes its
+ * language or when Locales get loaded or unloaded, and it is removed when the Player quits. Entries are only kept while
+ * the cache is registered as Listener, otherwise every call resolves the Locale from scratch.
+ */
+class PlayerLocaleCache implements Listener {
+    private final LocaleManager localeManager;
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean registered;
+
+    PlayerLocaleCache( LocaleManager localeManager ) {
+        this.localeManager = localeManager;
+    }
+
+    /**
+     * Get the loaded Locale the Player should be translated to
+     *
+     * @param player The Player to get the Locale for
+     * @return The resolved Locale
+     */
+    Locale get( Player player ) {
+        String raw = player.spigot().getLocale();
+        ResourceManager resourceManager = localeManager.getResourceManager();
+        long generation = resourceManager.getGeneration();
+        Locale defaultLocale = localeManager.getDefaultLocale();
+
+        Entry entry = entries.get( player.getUniqueId() );
+        if ( entry != null && entry.generation == generation && entry.defaultLocale == defaultLocale
+                && ( entry.raw == raw || ( raw != null && raw.equals( entry.raw ) ) ) ) {
+            return entry.locale;
+        }
+
+        Locale locale = resolve( resourceManager, parse( raw ), defaultLocale );
+        if ( registered ) {
+            entries.put( player.getUniqueId(), new Entry( raw, generation, defaultLocale, locale ) );
+        }
+
+        return locale;
+    }
+
+    /**
+     * Parse the locale String the client sends, like <code>en_US</code> or <code>en_us</code>
+     *
+     * @param raw The locale String of the client, may be null if the client didn't send its settings yet
+     * @return The parsed Locale or null if there is none
+     */
+    static Locale parse( String raw ) {
+        if ( raw == null || raw.isEmpty() ) {
+            return null;
+        }
+
+        String[] parts = raw.split( "[_-]", 3 );
+        String language = parts[0].toLowerCase( Locale.ROOT );
+        String country = parts.length > 1 ? parts[1].toUpperCase( Locale.ROOT ) : "";
+        return new Locale( language, country );
+    }
+
+    /**
+     * Walk the fallback chain of the Locale and return the first loaded one
+     */
+    private static Locale resolve( ResourceManager resourceManager, Locale locale, Locale defaultLocale ) {
+        if ( locale != null ) {
+            if ( resourceManager.isLoaded( locale ) ) {
+                return locale;
+            }
+
+            Locale language = new Locale( locale.getLanguage() );
+            if ( resourceManager.isLoaded( language ) ) {
+                return language;
+            }
+        }
+
+        return defaultLocale;
+    }
+
+    /**
+     * Mark this cache as registered, entries are kept from now on
+     */
+    void setRegistered() {
+        registered = true;
+    }
+
+    /**
+     * Drop all entries
+     */
+    void clear() {
+        entries.clear();
+    }
+
+    @EventHandler( priority = EventPriority.MONITOR )
+    public void onQuit( PlayerQuitEvent event ) {
+        entries.remove( event.getPlayer().getUniqueId() );
+    }
+
+    private static final class Entry {
+        private final String raw;
+        private final long generation;
+        private final Locale defaultLocale;
+        private final Locale locale;
+
+        private Entry( String raw, long generation, Locale defaultLocale, Locale locale ) {
+            this.raw = raw;
+            this.generation = generation;
+            this.defaultLocale = defaultLocale;
+            this.locale = locale;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package net.devintia.commons.i18n.format;
+
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.ClickEvent;
+import net.md_5.bungee.api.chat.TextComponent;
+import net.md_5.bungee.chat.ComponentSerializer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The chat component form of a {@link MessageTemplate}.
+ * <p>
+ * The legacy color codes of the template are parsed and serialized to JSON only once. The arguments are replaced by
+ * markers before that, so the parsed components and the JSON can be cut at the markers. Formatting only
+ * appends the cached JSON segments and the escaped arguments, or copies the cached components and fills in their text.
+ * Arguments are inserted as literal text in the style of the text around them: legacy color codes and URLs inside an
+ * argument are not parsed, so the result differs from parsing the formatted String whenever an argument contains them.
+ * For all other arguments it is identical, which is checked once per template. Templates which need a MessageFormat or
+ * fail that check are parsed on every call.
+ */
+final class ComponentTemplate {
+    //Mark the position of an argument in the parsed text, these chars are reserved for private use by Unicode
+    private static final char MARKER_START = '\uE000';
+    private static final char MARKER_END = '\uE001';
+
+    private final MessageTemplate template;
+
+    //Null if the template has to be formatted and parsed on every call
+    private final BaseComponent[] components;
+    private final boolean[] marked;
+
+    //The JSON around the arguments and the argument slot between each pair of segments
+    private final String[] segments;
+    private final int[] slots;
+    private final int jsonLength;
+
+    private ComponentTemplate( MessageTemplate template, BaseComponent[] components, boolean[] marked, String[] segments, int[] slots, int jsonLength ) {
+        this.template = template;
+        this.components = components;
+        this.marked = marked;
+        this.segments = segments;
+        this.slots = slots;
+        this.jsonLength = jsonLength;
+    }
+
+    /**
+     * Parse the given template into chat components
+     *
+     * @param template The template to parse
+     * @return The parsed template
+     */
+    static ComponentTemplate compile( MessageTemplate template ) {
+        //The markers can't be told apart from the text if it already contains them
+        if ( !template.isPlain() || template.getPattern().indexOf( MARKER_START ) != -1 ) {
+            return new ComponentTemplate( template, null, null, null, null, 0 );
+        }
+
+        //Replace every argument with a marker holding its slot
+        String[] literals = template.getLiterals();
+        StringBuilder text = new StringBuilder( literals[0] );
+        for ( int i = 1; i < literals.length; i++ ) {
+            text.append( MARKER_START ).append( i - 1 ).append( MARKER_END ).append( literals[i] );
+        }
+
+        BaseComponent[] components = TextComponent.fromLegacyText( text.toString() );
+        boolean[] marked = new boolean[components.length];
+        for ( int i = 0; i < components.length; i++ ) {
+            marked[i] = literals.length > 1 && isMarked( components[i] );
+        }
+
+        //Cut the JSON at the markers
+        String json = ComponentSerializer.toString( components );
+        List<String> segments = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int start = 0;
+        int marker;
+        while ( ( marker = json.indexOf( MARKER_START, start ) ) != -1 ) {
+            int end = json.indexOf( MARKER_END, marker );
+            segments.add( json.substring( start, marker ) );
+            slots.add( Integer.parseInt( json.substring( marker + 1, end ) ) );
+            start = end + 1;
+        }
+        segments.add( json.substring( start ) );
+
+        int[] slotArray = new int[slots.size()];
+        for ( int i = 0; i < slotArray.length; i++ ) {
+            slotArray[i] = slots.get( i );
+        }
+
+        ComponentTemplate componentTemplate = new ComponentTemplate( template, components, marked, segments.toArray( new String[segments.size()] ), slotArray, json.length() );
+
+        //Check that splicing a literal argument gives the same JSON as parsing the formatted String
+        Object[] sample = new Object[template.getArguments().length == 0 ? 0 : max( template.getArguments() ) + 1];
+        Arrays.fill( sample, "a" );
+        String expected = ComponentSerializer.toString( TextComponent.fromLegacyText( template.format( sample ) ) );
+        if ( !expected.equals( componentTemplate.toJson( sample ) ) || !expected.equals( ComponentSerializer.toString( componentTemplate.toComponents( sample ) ) ) ) {
+            return new ComponentTemplate( template, null, null, null, null, 0 );
+        }
+
+        return componentTemplate;
+    }
+
+    private static int max( int[] values ) {
+        int max = 0;
+        for ( int value : values ) {
+            max = Math.max( max, value );
+        }
+
+        return max;
+    }
+
+    private static boolean isMarked( BaseComponent component ) {
+        if ( component instanceof TextComponent && ( (TextComponent) component ).getText().indexOf( MARKER_START ) != -1 ) {
+            return true;
+        }
+
+        if ( component.getClickEvent() != null && component.getClickEvent().getValue().indexOf( MARKER_START ) != -1 ) {
+            return true;
+        }
+
+        if ( component.getExtra() != null ) {
+            for ( BaseComponent extra : component.getExtra() ) {
+                if ( isMarked( extra ) ) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Format the template into new chat components
+     *
+     * @param args The arguments which will be passed into the template
+     * @return The components, the caller may modify them
+     */
+    BaseComponent[] toComponents( Object... args ) {
+        if ( components == null ) {
+            return TextComponent.fromLegacyText( template.format( args ) );
+        }
+
+        BaseComponent[] result = new BaseComponent[components.length];
+        for ( int i = 0; i < components.length; i++ ) {
+            result[i] = components[i].duplicate();
+            if ( marked[i] ) {
+                fill( result[i], args );
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Replace the markers in the copied component and its extras with the arguments
+     */
+    private void fill( BaseComponent component, Object[] args ) {
+        if ( component instanceof TextComponent ) {
+            TextComponent textComponent = (TextComponent) component;
+            textComponent.setText( fill( textComponent.getText(), args ) );
+        }
+
+        ClickEvent clickEvent = component.getClickEvent();
+        if ( clickEvent != null && clickEvent.getValue().indexOf( MARKER_START ) != -1 ) {
+            component.setClickEvent( new ClickEvent( clickEvent.getAction(), fill( clickEvent.getValue(), args ) ) );
+        }
+
+        if ( component.getExtra() != null ) {
+            for ( BaseComponent extra : component.getExtra() ) {
+                fill( extra, args );
+            }
+        }
+    }
+
+    private String fill( String text, Object[] args ) {
+        int marker = text.indexOf( MARKER_START );
+        if ( marker == -1 ) {
+            return text;
+        }
+
+        StringBuilder result = new StringBuilder( text.length() + 16 );
+        int start = 0;
+        do {
+            int end = text.indexOf( MARKER_END, marker );
+            result.append( text, start, marker );
+            appendArgument( result, Integer.parseInt( text.substring( marker + 1, end ) ), args );
+            start = end + 1;
+        } while ( ( marker = text.indexOf( MARKER_START, start ) ) != -1 );
+
+        return result.append( text, start, text.length() ).toString();
+    }
+
+    /**
+     * Format the template into the JSON form of its chat components
+     *
+     * @param args The arguments which will be passed into the template
+     * @return The JSON String
+     */
+    String toJson( Object... args ) {
+        if ( components == null ) {
+            return ComponentSerializer.toString( TextComponent.fromLegacyText( template.format( args ) ) );
+        }
+
+        if ( slots.length == 0 ) {
+            return segments[0];
+        }
+
+        StringBuilder result = new StringBuilder( jsonLength + 16 * slots.length );
+        result.append( segments[0] );
+        for ( int i = 0; i < slots.length; i++ ) {
+            int start = result.length();
+            appendArgument( result, slots[i], args );
+            escape( result, start );
+            result.append( segments[i + 1] );
+        }
+
+        return result.toString();
+    }
+
+    private void appendArgument( StringBuilder result, int slot, Object[] args ) {
+        template.appendArgument( result, template.getArguments()[slot], args );
+    }
+
+    /**
+     * Escape everything after start the same way the Gson of the {@link ComponentSerializer} does, so the spliced JSON is
+     * equal to a serialized one. Arguments which don't need to be escaped are not copied.
+     */
+    private static void escape( StringBuilder result, int start ) {
+        int i = start;
+        while ( i < result.length() && !needsEscape( result.charAt( i ) ) ) {
+            i++;
+        }
+
+        if ( i == result.length() ) {
+            return;
+        }
+
+        String raw = result.substring( i );
+        result.setLength( i );
+        for ( int j = 0; j < raw.length(); j++ ) {
+            char c = raw.charAt( j );
+            switch ( c ) {
+                case '"':
+                    result.append( "\\\"" );
+                    break;
+                case '\\':
+                    result.append( "\\\\" );
+                    break;
+                case '\t':
+                    result.append( "\\t" );
+                    break;
+                case '\b':
+                    result.append( "\\b" );
+                    break;
+                case '\n':
+                    result.append( "\\n" );
+                    break;
+                case '\r':
+                    result.append( "\\r" );
+                    break;
+                case '\f':
+                    result.append( "\\f" );
+                    break;
+                default:
+                    if ( needsEscape( c ) ) {
+                        result.append( String.format( "\\u%04x", (int) c ) );
+                    } else {
+                        result.append( c );
+                    }
+            }
+        }
+    }
+
+    private static boolean needsEscape( char c ) {
+        return c < 0x20 || c == '"' || c == '\\' || c == '<' || c == '>' || c == '&' || c == '=' || c == '\''
+                || c == '\u2028' || c == '\u2029';
+    }
+}
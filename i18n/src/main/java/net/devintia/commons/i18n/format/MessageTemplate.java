@@ -0,0 +1,275 @@
+package net.devintia.commons.i18n.format;
+
+import net.md_5.bungee.api.chat.BaseComponent;
+import org.apache.commons.lang.Validate;
+
+import java.text.DateFormat;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A precompiled, immutable form of a {@link MessageFormat} pattern which can be shared between threads.
+ * <p>
+ * Patterns which only contain plain arguments like <code>{0}</code> are split into literal segments once and formatted
+ * without any parsing or locking. Arguments with a format type or style (<code>{0,number,#.##}</code>, choices, ...)
+ * fall back to a prototype MessageFormat which gets cloned for every call. Both ways produce the same output as
+ * <code>new MessageFormat( pattern, locale ).format( args )</code>.
+ * <p>
+ * Typed arguments (<code>{0,number}</code>, <code>{0,date}</code>, ...) are formatted in the Locale of the template.
+ * Building a MessageFormat and calling {@link MessageFormat#setLocale(Locale)} afterwards, as translations used to do,
+ * keeps the subformats of the default Locale, so those arguments looked the same for every player. That has been
+ * fixed on purpose: a typed number or date in a translation now differs from before if the default Locale of the JVM
+ * is not the Locale of the translation. Plain and quoted arguments are formatted exactly as before.
+ */
+public final class MessageTemplate {
+    //The thread confined formatters used for plain Number and Date arguments, per Locale
+    private static final ConcurrentMap<Locale, ThreadLocal<NumberFormat>> NUMBER_FORMATS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Locale, ThreadLocal<DateFormat>> DATE_FORMATS = new ConcurrentHashMap<>();
+
+    //Plain argument indexes with more digits are left to MessageFormat
+    private static final int MAX_INDEX_DIGITS = 9;
+
+    private final String pattern;
+    private final Locale locale;
+
+    //The literal segments around the arguments, there is always one more literal than there are arguments
+    private final String[] literals;
+    private final int[] arguments;
+
+    //Only set if the pattern could not be compiled into literals and arguments
+    private final MessageFormat prototype;
+
+    //The chat components of this template, parsed on first use
+    private volatile ComponentTemplate componentTemplate;
+
+    private MessageTemplate( String pattern, Locale locale, String[] literals, int[] arguments, MessageFormat prototype ) {
+        this.pattern = pattern;
+        this.locale = locale;
+        this.literals = literals;
+        this.arguments = arguments;
+        this.prototype = prototype;
+    }
+
+    /**
+     * Compiles the given pattern
+     *
+     * @param pattern The pattern in {@link MessageFormat} syntax
+     * @param locale  The Locale which should be used to format numbers and dates
+     * @return The compiled template
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public static MessageTemplate compile( String pattern, Locale locale ) {
+        //Validate the input
+        Validate.notNull( pattern, "Pattern can not be null" );
+        Validate.notNull( locale, "Locale can not be null" );
+
+        List<String> literals = new ArrayList<>();
+        List<Integer> arguments = new ArrayList<>();
+        StringBuilder segment = new StringBuilder();
+        boolean inQuote = false;
+
+        for ( int i = 0; i < pattern.length(); i++ ) {
+            char ch = pattern.charAt( i );
+            if ( ch == '\'' ) {
+                //Two quotes are one literal quote, a single one toggles the quoted mode
+                if ( i + 1 < pattern.length() && pattern.charAt( i + 1 ) == '\'' ) {
+                    segment.append( ch );
+                    i++;
+                } else {
+                    inQuote = !inQuote;
+                }
+            } else if ( ch == '{' && !inQuote ) {
+                int end = pattern.indexOf( '}', i + 1 );
+                int index = end == -1 ? -1 : parseIndex( pattern, i + 1, end );
+                if ( index == -1 ) {
+                    //Format types, styles or broken braces, let MessageFormat handle (or reject) them
+                    MessageFormat prototype = new MessageFormat( pattern, locale );
+                    return new MessageTemplate( pattern, locale, null, null, prototype );
+                }
+
+                literals.add( segment.toString() );
+                arguments.add( index );
+                segment.setLength( 0 );
+                i = end;
+            } else {
+                segment.append( ch );
+            }
+        }
+        literals.add( segment.toString() );
+
+        int[] indexes = new int[arguments.size()];
+        for ( int i = 0; i < indexes.length; i++ ) {
+            indexes[i] = arguments.get( i );
+        }
+
+        return new MessageTemplate( pattern, locale, literals.toArray( new String[literals.size()] ), indexes, null );
+    }
+
+    /**
+     * Parses a plain argument index
+     *
+     * @param pattern The pattern which contains the argument
+     * @param start   The first char after the opening brace
+     * @param end     The position of the closing brace
+     * @return The index or -1 if the argument is not a plain index
+     */
+    private static int parseIndex( String pattern, int start, int end ) {
+        if ( end == start || end - start > MAX_INDEX_DIGITS ) {
+            return -1;
+        }
+
+        int index = 0;
+        for ( int i = start; i < end; i++ ) {
+            char ch = pattern.charAt( i );
+            if ( ch < '0' || ch > '9' ) {
+                return -1;
+            }
+
+            index = index * 10 + ( ch - '0' );
+        }
+
+        return index;
+    }
+
+    /**
+     * Formats the template with the given arguments. Missing arguments are kept as <code>{index}</code>
+     *
+     * @param args The arguments which will be passed into the template
+     * @return The formatted String
+     */
+    public String format( Object... args ) {
+        if ( prototype != null ) {
+            return ( (MessageFormat) prototype.clone() ).format( args );
+        }
+
+        if ( arguments.length == 0 ) {
+            return literals[0];
+        }
+
+        StringBuilder result = new StringBuilder( pattern.length() + 16 * arguments.length );
+        result.append( literals[0] );
+        for ( int i = 0; i < arguments.length; i++ ) {
+            appendArgument( result, arguments[i], args );
+            result.append( literals[i + 1] );
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * Appends one argument the same way {@link MessageFormat} does for arguments without a format type
+     */
+    void appendArgument( StringBuilder result, int index, Object[] args ) {
+        if ( args == null || index >= args.length ) {
+            result.append( '{' ).append( index ).append( '}' );
+            return;
+        }
+
+        Object arg = args[index];
+        if ( arg == null ) {
+            result.append( "null" );
+        } else if ( arg instanceof Number ) {
+            result.append( numberFormat( locale ).format( arg ) );
+        } else if ( arg instanceof Date ) {
+            result.append( dateFormat( locale ).format( arg ) );
+        } else {
+            result.append( arg.toString() );
+        }
+    }
+
+    /**
+     * Formats the template into chat components. Legacy color codes are parsed once per template, the arguments are
+     * inserted as literal text, color codes and URLs inside them are not parsed.
+     *
+     * @param args The arguments which will be passed into the template
+     * @return New components which the caller may modify
+     */
+    public BaseComponent[] toComponents( Object... args ) {
+        return getComponentTemplate().toComponents( args );
+    }
+
+    /**
+     * Formats the template into the JSON form of its chat components, as used for chat, action bars and books. The JSON
+     * is serialized once per template, the escaped arguments are spliced into it as literal text. Color codes and URLs
+     * inside arguments are not parsed, so only arguments without them give the same JSON as serializing
+     * {@link #format(Object...)}.
+     *
+     * @param args The arguments which will be passed into the template
+     * @return The JSON String
+     */
+    public String toJson( Object... args ) {
+        return getComponentTemplate().toJson( args );
+    }
+
+    private ComponentTemplate getComponentTemplate() {
+        ComponentTemplate componentTemplate = this.componentTemplate;
+        if ( componentTemplate == null ) {
+            //Racing threads parse the same template, it doesn't matter which one is kept
+            this.componentTemplate = componentTemplate = ComponentTemplate.compile( this );
+        }
+
+        return componentTemplate;
+    }
+
+    /**
+     * Check if this template has been split into literals and arguments
+     */
+    boolean isPlain() {
+        return prototype == null;
+    }
+
+    String[] getLiterals() {
+        return literals;
+    }
+
+    int[] getArguments() {
+        return arguments;
+    }
+
+    private static NumberFormat numberFormat( Locale locale ) {
+        ThreadLocal<NumberFormat> format = NUMBER_FORMATS.get( locale );
+        if ( format == null ) {
+            format = NUMBER_FORMATS.computeIfAbsent( locale, key -> ThreadLocal.withInitial( () -> NumberFormat.getInstance( key ) ) );
+        }
+
+        return format.get();
+    }
+
+    private static DateFormat dateFormat( Locale locale ) {
+        ThreadLocal<DateFormat> format = DATE_FORMATS.get( locale );
+        if ( format == null ) {
+            format = DATE_FORMATS.computeIfAbsent( locale, key -> ThreadLocal.withInitial( () -> DateFormat.getDateTimeInstance( DateFormat.SHORT, DateFormat.SHORT, key ) ) );
+        }
+
+        return format.get();
+    }
+
+    /**
+     * Get the pattern this template has been compiled from
+     *
+     * @return The raw pattern
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Get the Locale this template formats numbers and dates for
+     *
+     * @return The Locale of this template
+     */
+    public Locale getLocale() {
+        return locale;
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
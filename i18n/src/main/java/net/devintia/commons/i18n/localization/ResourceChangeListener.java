@@ -0,0 +1,36 @@
+package net.devintia.commons.i18n.localization;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Gets told by the {@link ResourceManager} which keys changed when a loaded Resource gets replaced, so caches on top of
+ * it only have to drop the entries of these keys.
+ */
+public interface ResourceChangeListener {
+    /**
+     * Called after the new messages have been published
+     *
+     * @param locale The Locale whose Resource changed
+     * @param keys   The keys which have been added, removed or got another message
+     */
+    void onChange( Locale locale, Set<String> keys );
+
+    /**
+     * Called after the new messages have been published if the changed keys are not known, for example because finding
+     * them would have meant decoding a whole compiled bundle. Every key of the Locale has to be treated as changed.
+     *
+     * @param locale The Locale whose Resource has been replaced
+     */
+    void onReplace( Locale locale );
+
+    /**
+     * Called after an evicted Resource has been loaded again. Lookups which fell back to other Locales while it was
+     * evicted may now resolve to it again, its own messages did not change.
+     *
+     * @param locale The Locale whose Resource has been restored
+     */
+    default void onRestore( Locale locale ) {
+
+    }
+}
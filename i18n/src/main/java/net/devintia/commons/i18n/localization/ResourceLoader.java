@@ -21,6 +21,45 @@ public interface ResourceLoader {
      */
     String get( String key );
 
+    /**
+     * Check if the Resource has the key. Loaders should override this with a hash based lookup, the default
+     * implementation scans {@link #getKeys()}.
+     *
+     * @param key The key which should be looked up in the Resource
+     * @return true if the key is present / false if not
+     */
+    default boolean has( String key ) {
+        return getKeys().contains( key );
+    }
+
+    /**
+     * Get the translatable message if the Resource has the key. This is the lookup the ResourceManager uses, so loaders
+     * should override it to answer with a single hash lookup.
+     *
+     * @param key The key which should be looked up in the Resource
+     * @return The translatable Message or null when the key is not present
+     */
+    default String getOrNull( String key ) {
+        return has( key ) ? get( key ) : null;
+    }
+
+    /**
+     * Estimate how many bytes of heap this Resource uses. The ResourceManager uses this to keep its cache in budget.
+     * The default implementation measures all keys and messages, loaders which know better should override it.
+     *
+     * @return The approximated amount of bytes
+     */
+    default long estimateSize() {
+        //Object headers and table slots per entry, plus two bytes per char
+        long size = 0;
+        for ( String key : getKeys() ) {
+            String value = getOrNull( key );
+            size += 64 + 2L * key.length() + ( value != null ? 2L * value.length() : 0 );
+        }
+
+        return size;
+    }
+
     /**
      * Get the Formats this Resource can load. All file endings need to include the dot. For example this supports yml Files
      * then the return should be List which contains a entry ".yml"
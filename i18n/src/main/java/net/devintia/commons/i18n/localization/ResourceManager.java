@@ -1,33 +1,85 @@
 package net.devintia.commons.i18n.localization;
 
+import net.devintia.commons.async.AsyncRunner;
+import net.devintia.commons.async.Future;
+import net.devintia.commons.async.FutureListener;
+import net.devintia.commons.i18n.localization.loader.BinaryResourceLoader;
 import org.apache.commons.lang.Validate;
 import org.bukkit.Bukkit;
 
-import java.lang.ref.SoftReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 
+/**
+ * Manages the loaded Resources of one ClassLoader.
+ * <p>
+ * All loaded Resources live in an immutable {@link Snapshot} which is published through a single volatile reference.
+ * Lookups read the current snapshot without any locking and never see a half loaded Locale. Writers serialize on one
+ * lock, build the next snapshot off to the side and swap it in.
+ * <p>
+ * The ResourceLoaders are kept in a cache with a byte budget. If the budget is exceeded the least recently used
+ * Locales get evicted, except for the pinned (default) Locale. Lookups for an evicted Locale fail like lookups for a
+ * missing one, so callers fall back to their default Locale, while the Resource gets loaded again in the background.
+ */
 public class ResourceManager {
-    //Save all loaded Locales with their loadString
-    private final HashMap<Locale, String> loadedLocaleLoadStrings = new HashMap<>();
+    //The default byte budget of the cache
+    public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
 
-    //Save all Loaded Locales
-    private final HashMap<Locale, SoftReference<ResourceLoader>> loadedLocales = new HashMap<>();
+    //The current state of all loaded Locales, only the cache state of the entries changes after it has been published
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
 
-    //The list of all available ResourceLoaders
-    private final ArrayList<ResourceLoader> registerdLoaders = new ArrayList<>();
+    //The list of all available ResourceLoaders, copied on write
+    private volatile List<ResourceLoader> registerdLoaders = Collections.emptyList();
 
-    //Construct a object which can be locked on
+    //Construct a object which can be locked on, all writers hold it
     private final Object sharedLock = new Object();
 
     //The ClassLoader for which this Manager manages Resources
     private ClassLoader classLoader;
 
+    //Incremented on structural changes and on every publish, see getGeneration and getModificationCount
+    private volatile long generation;
+    private volatile long modifications;
+
+    //Get told which keys changed when Resources are replaced
+    private final List<ResourceChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    //The cache budget and state
+    private volatile long maxBytes = DEFAULT_MAX_BYTES;
+    private volatile long residentBytes;
+    private volatile Locale pinnedLocale;
+
+    //Statistics of the cache
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+
+    //Loads evicted Resources in the background
+    private final ExecutorService loadExecutor = Executors.newSingleThreadExecutor( runnable -> {
+        Thread thread = new Thread( runnable, "ResourceManager Loader" );
+        thread.setDaemon( true );
+        return thread;
+    } );
+
     /**
      * Constructs a new ResourceManager which handles the loading and getting, reloading and cleanup for Resources
      *
@@ -49,83 +101,354 @@ public class ResourceManager {
      *
      * @param loader New loader which can be used to load Resources
      */
-    public synchronized void registerLoader( ResourceLoader loader ) {
+    public void registerLoader( ResourceLoader loader ) {
         //Validate the input
         Validate.notNull( loader );
 
         synchronized ( sharedLock ) {
-            registerdLoaders.add( loader );
+            List<ResourceLoader> loaders = new ArrayList<>( registerdLoaders );
+            loaders.add( loader );
+            registerdLoaders = Collections.unmodifiableList( loaders );
         }
     }
 
     /**
-     * Try to load the ResourceLoader for this locale and param
+     * Try to build the ResourceLoader for this locale and param. Nothing gets published.
      *
-     * @param locale The locale which should be loaded for
-     * @param param  The param which the ResourceLoader should load
+     * @param param The param which the ResourceLoader should load
+     * @return The new ResourceLoader or null if no registered loader supports the param
      * @throws ResourceLoadFailedException
      */
-    private synchronized void loadLocale( Locale locale, String param ) throws ResourceLoadFailedException {
-        //Get the correct loader for this param
+    private ResourceLoader loadLocale( String param ) throws ResourceLoadFailedException {
+        //Get the correct loader for this param, the last registered one wins
+        ResourceLoader template = null;
         for ( ResourceLoader loader : registerdLoaders ) {
             for ( String ending : loader.getFormats() ) {
                 if ( param.endsWith( ending ) ) {
-                    try {
-                        synchronized ( sharedLock ) {
-                            loadedLocales.put( locale, new SoftReference<>( buildNewResourceLoader( loader, param ) ) );
-                            loadedLocaleLoadStrings.put( locale, param );
-                        }
-                    } catch ( RuntimeException e ) {
-                        throw new ResourceLoadFailedException( e );
-                    }
+                    template = loader;
                 }
             }
         }
+
+        if ( template == null ) {
+            return null;
+        }
+
+        try {
+            return buildNewResourceLoader( template, param );
+        } catch ( RuntimeException e ) {
+            throw new ResourceLoadFailedException( e );
+        }
     }
 
     /**
      * Load a new Resource for the locale. The Loaders gets selected based of the ending of the Parameter. If
      * a Locale has been loaded before it gets unloaded and the new one gets loaded instead. So you can overload
      * old Resources with new ones
+     * <p/>
+     * The old Resource is not cleaned up since lookups which are still running may read from it.
      *
      * @param locale Locale for which this Resource should be loaded
      * @param param  The param from {@link net.devintia.commons.i18n.LocaleManager#load(java.util.Locale, String)}
      * @throws ResourceLoadFailedException
      */
-    public synchronized void load( Locale locale, String param ) throws ResourceLoadFailedException {
+    public void load( Locale locale, String param ) throws ResourceLoadFailedException {
         //Check if parameters are correct
         Validate.notNull( locale );
         Validate.notNull( param );
 
-        //Check if locale has already been loaded
-        if ( loadedLocales.containsKey( locale ) ) {
-            synchronized ( sharedLock ) {
-                //Unload the locale and get the new one
-                ResourceLoader loader = loadedLocales.get( locale ).get();
-                if ( loader != null ) {
-                    loader.cleanup();
+        synchronized ( sharedLock ) {
+            //Build the new Resource before anything gets published
+            ResourceLoader loader = loadLocale( param );
+
+            Changes changes = new Changes( snapshot );
+            if ( loader != null ) {
+                changes.put( locale, param, loader );
+            } else {
+                changes.remove( locale );
+            }
+
+            publish( changes );
+        }
+    }
+
+    /**
+     * Load many Resources in parallel on the given runner. Every Resource gets parsed on its own, once all of them are
+     * done the successfully loaded ones are published together in one snapshot. A failing Resource does not hold up
+     * or prevent the others.
+     *
+     * @param params The params from {@link net.devintia.commons.i18n.LocaleManager#load(java.util.Locale, String)} per Locale
+     * @param runner The runner which should parse the Resources
+     * @return A Future which resolves with the causes of all Locales which could not be loaded, once the others are published
+     */
+    public Future<Map<Locale, Throwable>> loadAll( Map<Locale, String> params, AsyncRunner runner ) {
+        //Check if parameters are correct
+        Validate.notNull( params );
+        Validate.notNull( runner );
+
+        List<Future<PreparedResource>> futures = new ArrayList<>( params.size() );
+        for ( Map.Entry<Locale, String> entry : params.entrySet() ) {
+            final Locale locale = entry.getKey();
+            final String param = entry.getValue();
+            Validate.notNull( locale );
+            Validate.notNull( param );
+
+            futures.add( runner.run( () -> {
+                try {
+                    ResourceLoader loader = loadLocale( param );
+                    if ( loader == null ) {
+                        throw new ResourceLoadFailedException( "No ResourceLoader found for " + param );
+                    }
+
+                    return new PreparedResource( locale, param, loader, null );
+                } catch ( ResourceLoadFailedException | RuntimeException e ) {
+                    return new PreparedResource( locale, param, null, e );
+                }
+            } ) );
+        }
+
+        Future<Map<Locale, Throwable>> result = new Future<>();
+        Future.allSettled( futures ).addListener( new FutureListener<List<PreparedResource>>() {
+            @Override
+            public void onResolved( List<PreparedResource> prepared ) {
+                Map<Locale, Throwable> failures = new HashMap<>();
+
+                synchronized ( sharedLock ) {
+                    Changes changes = new Changes( snapshot );
+                    for ( PreparedResource resource : prepared ) {
+                        if ( resource == null ) {
+                            //Cancelled because the runner has been closed
+                            continue;
+                        }
+
+                        if ( resource.cause != null ) {
+                            failures.put( resource.locale, resource.cause );
+                        } else {
+                            changes.put( resource.locale, resource.param, resource.loader );
+                        }
+                    }
+
+                    publish( changes );
                 }
 
-                loadedLocales.remove( locale );
-                loadedLocaleLoadStrings.remove( locale );
+                result.resolve( failures );
             }
+
+            @Override
+            public void onFailed( Throwable cause ) {
+                result.fail( cause );
+            }
+        } );
+
+        return result;
+    }
+
+    /**
+     * Publishes the changes as new snapshot, brings the cache back into its budget and tells the listeners which keys
+     * changed. Must be called while holding the lock.
+     *
+     * @param changes The changes to publish
+     */
+    private void publish( Changes changes ) {
+        if ( !changes.modified ) {
+            return;
         }
 
-        loadLocale( locale, param );
+        snapshot = new Snapshot( changes.resources );
+        if ( changes.structural ) {
+            generation++;
+        }
+        modifications++;
+        evictIfNeeded();
+
+        for ( Map.Entry<Locale, Set<String>> entry : changes.changedKeys.entrySet() ) {
+            fireChange( entry.getKey(), entry.getValue() );
+        }
+
+        for ( Locale locale : changes.replaced ) {
+            fireReplace( locale );
+        }
     }
 
     /**
-     * Checks if the GC has unloaded this Locale ResourceLoader for the need of more RAM, if so try to reload the Locale
+     * Tells all listeners that the keys of the Locale changed
+     */
+    private void fireChange( Locale locale, Set<String> keys ) {
+        Set<String> unmodifiableKeys = Collections.unmodifiableSet( keys );
+        for ( ResourceChangeListener listener : changeListeners ) {
+            try {
+                listener.onChange( locale, unmodifiableKeys );
+            } catch ( RuntimeException e ) {
+                Bukkit.getLogger().log( Level.SEVERE, "A ResourceChangeListener failed", e );
+            }
+        }
+    }
+
+    /**
+     * Tells all listeners that any message of the Locale may have changed
+     */
+    private void fireReplace( Locale locale ) {
+        for ( ResourceChangeListener listener : changeListeners ) {
+            try {
+                listener.onReplace( locale );
+            } catch ( RuntimeException e ) {
+                Bukkit.getLogger().log( Level.SEVERE, "A ResourceChangeListener failed", e );
+            }
+        }
+    }
+
+    /**
+     * Tells all listeners that the evicted Resource of the Locale has been loaded again
+     */
+    private void fireRestore( Locale locale ) {
+        for ( ResourceChangeListener listener : changeListeners ) {
+            try {
+                listener.onRestore( locale );
+            } catch ( RuntimeException e ) {
+                Bukkit.getLogger().log( Level.SEVERE, "A ResourceChangeListener failed", e );
+            }
+        }
+    }
+
+    /**
+     * Get the keys whose message differs between the two ResourceLoaders, including added and removed keys
+     */
+    private static Set<String> diff( ResourceLoader oldLoader, ResourceLoader newLoader ) {
+        Set<String> changed = new HashSet<>();
+        for ( String key : newLoader.getKeys() ) {
+            if ( !Objects.equals( newLoader.getOrNull( key ), oldLoader.getOrNull( key ) ) ) {
+                changed.add( key );
+            }
+        }
+
+        for ( String key : oldLoader.getKeys() ) {
+            if ( !newLoader.has( key ) ) {
+                changed.add( key );
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Gets the ResourceLoader of the loaded Resource. If the Resource has been evicted from the cache it gets loaded
+     * again in the background and null is returned until that is done.
      *
-     * @param locale The Locale to check for
-     * @throws ResourceLoadFailedException
+     * @param resource The Resource to get the ResourceLoader for
+     * @return The ResourceLoader or null if the Resource is currently evicted
      */
-    private synchronized void reloadIfGCCleared( Locale locale ) throws ResourceLoadFailedException {
-        if ( loadedLocales.get( locale ).get() == null ) {
+    private ResourceLoader getLoader( LoadedResource resource ) {
+        ResourceLoader loader = resource.loader;
+        if ( loader == null ) {
+            misses.increment();
+            scheduleRestore( resource );
+            return null;
+        }
+
+        hits.increment();
+        resource.touch();
+        return loader;
+    }
+
+    /**
+     * Record a lookup which has been answered by a cache on top of this ResourceManager, so the Resources it came from
+     * stay recently used. This only writes a coarse timestamp and never loads anything.
+     *
+     * @param locale The Locale the cached entry has been resolved from
+     */
+    public void recordAccess( Locale locale ) {
+        hits.increment();
+        for ( LoadedResource resource : snapshot.getChain( locale ) ) {
+            resource.touch();
+        }
+    }
+
+    /**
+     * Loads an evicted Resource again in the background. Only one load per Resource runs at the same time.
+     *
+     * @param resource The evicted Resource
+     */
+    private void scheduleRestore( final LoadedResource resource ) {
+        if ( !resource.loading.compareAndSet( false, true ) ) {
+            return;
+        }
+
+        try {
+            loadExecutor.execute( () -> restore( resource ) );
+        } catch ( RejectedExecutionException e ) {
+            //Shut down by cleanup
+            resource.loading.set( false );
+        }
+    }
+
+    /**
+     * Loads an evicted Resource again and puts it back into the cache if it is still part of the current snapshot
+     *
+     * @param resource The evicted Resource
+     */
+    private void restore( LoadedResource resource ) {
+        try {
+            //Parse outside of the lock, the Resource may have been replaced in the meantime
+            ResourceLoader loader = loadLocale( resource.param );
+            loads.increment();
+            if ( loader == null ) {
+                return;
+            }
+
             synchronized ( sharedLock ) {
-                loadLocale( locale, loadedLocaleLoadStrings.get( locale ) );
+                if ( snapshot.resources.get( resource.locale ) == resource && resource.loader == null ) {
+                    //Only lookups which fell back to other Locales while it was evicted are affected
+                    resource.restore( loader, loader.estimateSize() );
+                    modifications++;
+                    evictIfNeeded();
+                    fireRestore( resource.locale );
+                }
+            }
+        } catch ( ResourceLoadFailedException | RuntimeException e ) {
+            Bukkit.getLogger().log( Level.SEVERE, "Could not load evicted Resource " + resource.param, e );
+        } finally {
+            resource.loading.set( false );
+        }
+    }
+
+    /**
+     * Evicts the least recently used Resources until the cache fits into its budget again. The pinned Locale is never
+     * evicted. Must be called while holding the lock.
+     */
+    private void evictIfNeeded() {
+        long total = 0;
+        for ( LoadedResource resource : snapshot.resources.values() ) {
+            if ( resource.loader != null ) {
+                total += resource.size;
+            }
+        }
+
+        while ( total > maxBytes ) {
+            Locale pinned = pinnedLocale;
+            LoadedResource victim = null;
+            for ( Map.Entry<Locale, LoadedResource> entry : snapshot.resources.entrySet() ) {
+                LoadedResource resource = entry.getValue();
+                if ( resource.loader == null || entry.getKey().equals( pinned ) ) {
+                    continue;
+                }
+
+                if ( victim == null || resource.lastAccess < victim.lastAccess ) {
+                    victim = resource;
+                }
+            }
+
+            if ( victim == null ) {
+                //Only the pinned Locale is left
+                break;
             }
+
+            //The ResourceLoader is not cleaned up since lookups which are still running may read from it
+            victim.evict();
+            evictions.increment();
+            total -= victim.size;
         }
+
+        residentBytes = total;
     }
 
     /**
@@ -140,45 +463,49 @@ public class ResourceManager {
      * @throws ResourceLoadFailedException
      */
     public String get( Locale locale, String key ) throws ResourceNotLoadedException, ResourceLoadFailedException {
-        //Validate the input
-        Validate.notNull( locale );
-        Validate.notNull( key );
-
-        //If Locale is not loaded throw a ResourceNotLoadedException
-        if ( loadedLocales.containsKey( locale ) ) {
-            //Check if this Locale contains the key searched for
-            reloadIfGCCleared( locale );
-
-            if ( loadedLocales.get( locale ).get().getKeys().contains( key ) ) {
-                return loadedLocales.get( locale ).get().get( key );
-            }
+        String value = getOrNull( locale, key );
+        if ( value != null ) {
+            return value;
         }
 
-        //Check if there is a Resource for the language only (so you can inherit en to en_US for example)
-        Locale baseLocale = new Locale( locale.getLanguage() );
+        //If not locale was found which contains the key throw an Exception
+        throw new ResourceNotLoadedException( "The locale " + locale.toString() + ":" + key + " has not been loaded" );
+    }
 
-        //If Locale is not loaded throw a ResourceNotLoadedException
-        if ( loadedLocales.containsKey( baseLocale ) ) {
-            //Check if this Locale contains the key searched for
-            reloadIfGCCleared( baseLocale );
+    /**
+     * Same as {@link #get(Locale, String)} but returns null instead of throwing if no Resource contains the key. The
+     * Resources a Locale falls back to are resolved once per snapshot, so a miss does not allocate anything.
+     *
+     * @param locale Locale to lookup
+     * @param key    Key to search in the loader
+     * @return The String which has been resolved by the Loader or null if the key could not be found
+     */
+    public String getOrNull( Locale locale, String key ) {
+        //Validate the input
+        Validate.notNull( locale );
+        Validate.notNull( key );
 
-            if ( loadedLocales.get( baseLocale ).get().getKeys().contains( key ) ) {
-                return loadedLocales.get( baseLocale ).get().get( key );
+        //Check the Locale and its language only Resource (so you can inherit en to en_US for example)
+        for ( LoadedResource resource : snapshot.getChain( locale ) ) {
+            ResourceLoader loader = getLoader( resource );
+            String value = loader != null ? loader.getOrNull( key ) : null;
+            if ( value != null ) {
+                return value;
             }
         }
 
-        //If not locale was found which contains the key throw an Exception
-        throw new ResourceNotLoadedException( "The locale " + locale.toString() + ":" + key + " has not been loaded" );
+        return null;
     }
 
     /**
-     * Checks if a Locale has been loaded into this ResourceManager
+     * Checks if a Locale has been loaded into this ResourceManager. Locales which are currently evicted from the cache
+     * still count as loaded.
      *
      * @param locale Locale which should be checked for
      * @return true if loaded / false if not
      */
     public boolean isLoaded( Locale locale ) {
-        return loadedLocales.containsKey( locale );
+        return snapshot.resources.containsKey( locale );
     }
 
     /**
@@ -189,7 +516,7 @@ public class ResourceManager {
      * @return A hopefully new ResourceLoader
      * @throws RuntimeException
      */
-    private synchronized ResourceLoader buildNewResourceLoader( ResourceLoader loader, String argument ) {
+    private ResourceLoader buildNewResourceLoader( ResourceLoader loader, String argument ) {
         try {
             Constructor constructor = loader.getClass().getConstructor( ClassLoader.class, String.class );
             return (ResourceLoader) constructor.newInstance( this.classLoader, argument );
@@ -201,34 +528,53 @@ public class ResourceManager {
     /**
      * Reload all ResourceLoaders
      * <p/>
-     * If one of the ResourceLoaders reports an error upon reloading it will get printed to the Plugins Logger
+     * Every Resource gets loaded into a new ResourceLoader and all of them are published at once. Resources whose
+     * messages did not change keep their old ResourceLoader, for the others only the changed keys are reported to the
+     * {@link ResourceChangeListener}s. If one of the ResourceLoaders reports an error upon reloading it will get printed
+     * to the Plugins Logger and the old one is kept.
      */
-    public synchronized void reload() {
-        //Reload all ResourceLoaders
-        for ( SoftReference<ResourceLoader> loader : loadedLocales.values() ) {
-            try {
-                if ( loader != null && loader.get() != null ) {
-                    loader.get().reload();
+    public void reload() {
+        synchronized ( sharedLock ) {
+            Changes changes = new Changes( snapshot );
+            for ( Map.Entry<Locale, LoadedResource> entry : snapshot.resources.entrySet() ) {
+                try {
+                    ResourceLoader loader = loadLocale( entry.getValue().param );
+                    if ( loader != null ) {
+                        changes.put( entry.getKey(), entry.getValue().param, loader );
+                    }
+                } catch ( ResourceLoadFailedException e ) {
+                    Bukkit.getLogger().log( Level.SEVERE, "Could not reload all Resources", e );
                 }
-            } catch ( ResourceLoadFailedException e ) {
-                Bukkit.getLogger().log( Level.SEVERE, "Could not reload all Resources", e );
             }
+
+            publish( changes );
         }
     }
 
     /**
      * If the Plugin should be unloaded remove all loaded Things and unref the plugin
      */
-    public synchronized void cleanup() {
-        //Cleanup all ResourceLoaders
-        for ( SoftReference<ResourceLoader> loader : loadedLocales.values() ) {
-            if ( loader != null && loader.get() != null ) {
-                loader.get().cleanup();
+    public void cleanup() {
+        loadExecutor.shutdownNow();
+
+        synchronized ( sharedLock ) {
+            Snapshot old = snapshot;
+            snapshot = Snapshot.EMPTY;
+            residentBytes = 0;
+            generation++;
+            modifications++;
+
+            //Cleanup all ResourceLoaders
+            for ( LoadedResource resource : old.resources.values() ) {
+                ResourceLoader loader = resource.loader;
+                if ( loader != null ) {
+                    loader.cleanup();
+                }
             }
-        }
 
-        //Remove all refs
-        classLoader = null;
+            //Remove all refs
+            classLoader = null;
+        }
     }
 
     /**
@@ -237,6 +583,289 @@ public class ResourceManager {
      * @return ArrayList of Locales
      */
     public List<Locale> getLoadedLocales() {
-        return new ArrayList<>( loadedLocales.keySet() );
+        return new ArrayList<>( snapshot.resources.keySet() );
+    }
+
+    /**
+     * Set the Locale which is never evicted from the cache, this should be the default Locale
+     *
+     * @param locale The Locale to pin or null to not pin any Locale
+     */
+    public void setPinnedLocale( Locale locale ) {
+        pinnedLocale = locale;
+    }
+
+    /**
+     * Set the byte budget of the cache. If the cache holds more than that least recently used Locales get evicted.
+     *
+     * @param maxBytes The new budget in bytes
+     */
+    public void setMaxBytes( long maxBytes ) {
+        Validate.isTrue( maxBytes > 0, "The budget must be greater than 0" );
+
+        synchronized ( sharedLock ) {
+            this.maxBytes = maxBytes;
+            evictIfNeeded();
+        }
+    }
+
+    /**
+     * Get the byte budget of the cache
+     *
+     * @return The budget in bytes
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Get the estimated amount of bytes the currently cached Resources use
+     *
+     * @return The amount of bytes
+     */
+    public long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * Get the counter which changes every time Locales are added or removed. Caches on top of this ResourceManager can
+     * compare it to find out if they are stale as a whole. Changes of single keys and restored Locales are reported to
+     * the {@link ResourceChangeListener}s instead.
+     *
+     * @return The current generation
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Get the counter which changes every time anything gets published. Caches can read it before and after they
+     * computed an entry to find out if the entry might have been computed from stale messages.
+     *
+     * @return The current modification count
+     */
+    public long getModificationCount() {
+        return modifications;
+    }
+
+    /**
+     * Register a listener which gets told about changed keys. Listeners are called while the ResourceManager holds its
+     * write lock, so they should only invalidate caches and must not load Resources.
+     *
+     * @param listener The listener to add
+     */
+    public void addChangeListener( ResourceChangeListener listener ) {
+        Validate.notNull( listener );
+
+        changeListeners.add( listener );
+    }
+
+    /**
+     * Remove a listener registered by {@link #addChangeListener(ResourceChangeListener)}
+     *
+     * @param listener The listener to remove
+     */
+    public void removeChangeListener( ResourceChangeListener listener ) {
+        changeListeners.remove( listener );
+    }
+
+    /**
+     * Get how many lookups hit a cached Resource
+     *
+     * @return The amount of cache hits
+     */
+    public long getCacheHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Get how many lookups hit an evicted Resource and had to fall back
+     *
+     * @return The amount of cache misses
+     */
+    public long getCacheMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Get how many Resources have been evicted to stay in the budget
+     *
+     * @return The amount of evictions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Get how many evicted Resources have been loaded again in the background
+     *
+     * @return The amount of background loads
+     */
+    public long getBackgroundLoads() {
+        return loads.sum();
+    }
+
+    /**
+     * The next snapshot which is being built by a writer
+     */
+    private static final class Changes {
+        private final Map<Locale, LoadedResource> resources;
+        private final Map<Locale, Set<String>> changedKeys = new HashMap<>();
+        private final Set<Locale> replaced = new HashSet<>();
+        private boolean structural;
+        private boolean modified;
+
+        private Changes( Snapshot snapshot ) {
+            this.resources = new HashMap<>( snapshot.resources );
+        }
+
+        /**
+         * Put the new ResourceLoader of the Locale. If the Locale is loaded the two ResourceLoaders are compared, an
+         * unchanged one is not replaced at all. Compiled bundles are not compared key by key, since that would decode
+         * both of them onto the heap: two bundles are compared by their raw bytes, otherwise the whole Locale counts
+         * as changed.
+         */
+        private void put( Locale locale, String param, ResourceLoader loader ) {
+            LoadedResource old = resources.get( locale );
+            ResourceLoader oldLoader = old != null ? old.loader : null;
+
+            if ( oldLoader == null ) {
+                //New or evicted, other Locales may have fallen back for it
+                structural = true;
+            } else if ( oldLoader instanceof BinaryResourceLoader || loader instanceof BinaryResourceLoader ) {
+                boolean unchanged = oldLoader instanceof BinaryResourceLoader && loader instanceof BinaryResourceLoader
+                        && ( (BinaryResourceLoader) loader ).hasSameContent( (BinaryResourceLoader) oldLoader );
+                if ( unchanged && param.equals( old.param ) ) {
+                    return;
+                }
+
+                if ( !unchanged ) {
+                    changedKeys.remove( locale );
+                    replaced.add( locale );
+                }
+            } else {
+                Set<String> changed = diff( oldLoader, loader );
+                if ( changed.isEmpty() && param.equals( old.param ) ) {
+                    //Keep the old ResourceLoader and its cache state
+                    return;
+                }
+
+                if ( !changed.isEmpty() && !replaced.contains( locale ) ) {
+                    changedKeys.put( locale, changed );
+                }
+            }
+
+            resources.put( locale, new LoadedResource( locale, param, loader ) );
+            modified = true;
+        }
+
+        private void remove( Locale locale ) {
+            if ( resources.remove( locale ) != null ) {
+                changedKeys.remove( locale );
+                replaced.remove( locale );
+                structural = true;
+                modified = true;
+            }
+        }
+    }
+
+    /**
+     * A Resource which has been parsed by {@link #loadAll(Map, AsyncRunner)} but not yet published
+     */
+    private static final class PreparedResource {
+        private final Locale locale;
+        private final String param;
+        private final ResourceLoader loader;
+        private final Throwable cause;
+
+        private PreparedResource( Locale locale, String param, ResourceLoader loader, Throwable cause ) {
+            this.locale = locale;
+            this.param = param;
+            this.loader = loader;
+            this.cause = cause;
+        }
+    }
+
+    /**
+     * One loaded Locale and its cache state
+     */
+    private static final class LoadedResource {
+        //The Locale and the param the Resource has been loaded with, needed to load it again
+        private final Locale locale;
+        private final String param;
+
+        //Null while evicted
+        private volatile ResourceLoader loader;
+        private volatile long size;
+        private volatile long lastAccess;
+        private final AtomicBoolean loading = new AtomicBoolean();
+
+        private LoadedResource( Locale locale, String param, ResourceLoader loader ) {
+            this.locale = locale;
+            this.param = param;
+            this.loader = loader;
+            this.size = loader.estimateSize();
+            this.touch();
+        }
+
+        private void touch() {
+            //Millisecond resolution is plenty for LRU and avoids writing the shared field on every lookup
+            long now = System.nanoTime() >>> 20;
+            if ( lastAccess != now ) {
+                lastAccess = now;
+            }
+        }
+
+        private void evict() {
+            loader = null;
+        }
+
+        private void restore( ResourceLoader loader, long size ) {
+            this.size = size;
+            this.loader = loader;
+            this.touch();
+        }
+    }
+
+    /**
+     * An immutable view of all loaded Locales
+     */
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot( Collections.<Locale, LoadedResource>emptyMap() );
+        private static final LoadedResource[] NO_RESOURCES = new LoadedResource[0];
+
+        private final Map<Locale, LoadedResource> resources;
+
+        //The Resources every requested Locale falls back to, they can't change as long as this snapshot is current
+        private final ConcurrentMap<Locale, LoadedResource[]> chains = new ConcurrentHashMap<>();
+
+        private Snapshot( Map<Locale, LoadedResource> resources ) {
+            this.resources = Collections.unmodifiableMap( resources );
+        }
+
+        /**
+         * Get the Resources of the Locale and its language only Locale, in this order. Locales which are not loaded are
+         * skipped.
+         */
+        private LoadedResource[] getChain( Locale locale ) {
+            LoadedResource[] chain = chains.get( locale );
+            if ( chain != null ) {
+                return chain;
+            }
+
+            LoadedResource resource = resources.get( locale );
+            LoadedResource baseResource = locale.getCountry().isEmpty() && locale.getVariant().isEmpty() ? null : resources.get( new Locale( locale.getLanguage() ) );
+
+            if ( resource != null && baseResource != null ) {
+                chain = new LoadedResource[]{ resource, baseResource };
+            } else if ( resource != null || baseResource != null ) {
+                chain = new LoadedResource[]{ resource != null ? resource : baseResource };
+            } else {
+                chain = NO_RESOURCES;
+            }
+
+            LoadedResource[] previous = chains.putIfAbsent( locale, chain );
+            return previous != null ? previous : chain;
+        }
     }
 }
@@ -0,0 +1,183 @@
+package net.devintia.commons.i18n.localization;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.MapMaker;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * A pool which deduplicates the keys and messages of all loaded Resources.
+ * <p>
+ * Many Locales share the same keys and a lot of their messages (names, color codes, untranslated messages), but every
+ * ResourceLoader parses its own copies of them. ResourceLoaders route their Strings through this pool while loading,
+ * so only one instance of every String is kept. The pool only holds weak references, Strings which are no longer
+ * used by any Resource get collected.
+ * <p>
+ * Everything which keeps pooled Strings registers itself as {@link Holder}, so the pool can tell how much memory it
+ * currently saves by counting how many references there are to every pooled instance.
+ */
+public final class StringPool {
+    private static final Interner<String> INTERNER = Interners.newWeakInterner();
+
+    //Everything which keeps pooled Strings, weak so the pool doesn't keep discarded Resources alive
+    private static final Set<Holder> HOLDERS = Collections.newSetFromMap( new MapMaker().weakKeys().<Holder, Boolean>makeMap() );
+
+    //Java 9 and newer store Strings which only contain Latin-1 chars with one byte per char
+    private static final boolean COMPACT_STRINGS = !System.getProperty( "java.specification.version", "1.8" ).startsWith( "1." );
+
+    //Statistics of the pool, counted since the start or the last reset
+    private static final LongAdder internHits = new LongAdder();
+    private static final LongAdder internHitBytes = new LongAdder();
+
+    private StringPool() {
+
+    }
+
+    /**
+     * Get the pooled instance of the String
+     *
+     * @param string The String to pool, may be null
+     * @return The pooled instance, which is the given one if it has not been pooled before
+     */
+    public static String intern( String string ) {
+        if ( string == null ) {
+            return null;
+        }
+
+        String pooled = INTERNER.intern( string );
+        if ( pooled != string ) {
+            internHits.increment();
+            internHitBytes.add( estimateSize( string ) );
+        }
+
+        return pooled;
+    }
+
+    /**
+     * Register something which keeps pooled Strings, so they are counted by {@link #getSavedBytes()}
+     *
+     * @param holder The holder to register, it is only referenced weakly
+     */
+    public static void register( Holder holder ) {
+        HOLDERS.add( holder );
+    }
+
+    /**
+     * Count the references of all registered holders to every pooled String
+     */
+    private static Map<String, int[]> countReferences() {
+        Map<String, int[]> references = new IdentityHashMap<>();
+        for ( Holder holder : HOLDERS ) {
+            holder.forEachPooled( string -> {
+                int[] count = references.get( string );
+                if ( count == null ) {
+                    references.put( string, new int[]{ 1 } );
+                } else {
+                    count[0]++;
+                }
+            } );
+        }
+
+        return references;
+    }
+
+    /**
+     * Get how many references of the registered holders currently point to a String which is shared with another
+     * reference, which are the Strings that would be duplicated without the pool. This walks all holders, so it
+     * shouldn't be called on every lookup. Discarded holders are counted until they get garbage collected.
+     *
+     * @return The amount of deduplicated references
+     */
+    public static long getDeduplicatedStrings() {
+        long deduplicated = 0;
+        for ( int[] count : countReferences().values() ) {
+            deduplicated += count[0] - 1;
+        }
+
+        return deduplicated;
+    }
+
+    /**
+     * Get the approximated amount of heap the pool currently saves, which is the size of every pooled String times the
+     * amount of references to it beyond the first one. This walks all holders like {@link #getDeduplicatedStrings()}.
+     *
+     * @return The approximated amount of saved bytes
+     */
+    public static long getSavedBytes() {
+        long saved = 0;
+        for ( Map.Entry<String, int[]> entry : countReferences().entrySet() ) {
+            saved += ( entry.getValue()[0] - 1 ) * estimateSize( entry.getKey() );
+        }
+
+        return saved;
+    }
+
+    /**
+     * Approximate the heap usage of a String: the String itself and its char or byte array, aligned to 8 bytes
+     */
+    private static long estimateSize( String string ) {
+        long length = string.length();
+        if ( !COMPACT_STRINGS || !isLatin1( string ) ) {
+            length *= 2;
+        }
+
+        return 24 + ( ( 16 + length + 7 ) & ~7 );
+    }
+
+    private static boolean isLatin1( String string ) {
+        for ( int i = 0; i < string.length(); i++ ) {
+            if ( string.charAt( i ) > 0xFF ) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Get how often a String has been replaced by an already pooled instance. This is cumulative: reloading an unchanged
+     * Resource counts all of its Strings again, even though the replaced ResourceLoader gets discarded. It is no measure
+     * of the memory the pool currently saves, see {@link #getSavedBytes()} for that.
+     *
+     * @return The amount of intern hits since the start or the last {@link #resetStatistics()}
+     */
+    public static long getInternHits() {
+        return internHits.sum();
+    }
+
+    /**
+     * Get the approximated size of all Strings counted by {@link #getInternHits()}, which is the amount of bytes that
+     * became garbage right away instead of being kept by a ResourceLoader. This is cumulative as well.
+     *
+     * @return The approximated amount of bytes since the start or the last {@link #resetStatistics()}
+     */
+    public static long getInternHitBytes() {
+        return internHitBytes.sum();
+    }
+
+    /**
+     * Reset the intern hit statistics, for example to measure a single load
+     */
+    public static void resetStatistics() {
+        internHits.reset();
+        internHitBytes.reset();
+    }
+
+    /**
+     * Something which keeps pooled Strings, like the lookup table of a Resource
+     */
+    public interface Holder {
+        /**
+         * Pass every pooled String this holder currently references to the action, once per reference
+         *
+         * @param action The action to call
+         */
+        void forEachPooled( Consumer<String> action );
+    }
+}
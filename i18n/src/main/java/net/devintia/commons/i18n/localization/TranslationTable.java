@@ -0,0 +1,142 @@
+package net.devintia.commons.i18n.localization;
+
+import org.apache.commons.lang.Validate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * An immutable, flat table of translation keys to their messages which ResourceLoaders can hand out lookups from.
+ * <p>
+ * The entries are stored in two parallel arrays with open addressing and linear probing, so a lookup is one hash
+ * computation (cached by the String itself) and usually a single comparison. Keys and messages are deduplicated
+ * through the {@link StringPool}, which shares them between all Locales.
+ */
+public final class TranslationTable implements StringPool.Holder {
+    //A table without any entries
+    public static final TranslationTable EMPTY = new TranslationTable( Collections.<String, String>emptyMap() );
+
+    private final String[] keys;
+    private final String[] values;
+    private final int mask;
+    private final int size;
+
+    /**
+     * Builds a new table out of the given entries. Entries with a null key or value are skipped.
+     *
+     * @param entries The keys and messages which should be stored
+     */
+    public TranslationTable( Map<String, String> entries ) {
+        //Validate the input
+        Validate.notNull( entries );
+
+        //Keep the table at most half full so probe chains stay short
+        int capacity = 2;
+        while ( capacity < entries.size() * 2 ) {
+            capacity <<= 1;
+        }
+
+        this.keys = new String[capacity];
+        this.values = new String[capacity];
+        this.mask = capacity - 1;
+
+        int size = 0;
+        for ( Map.Entry<String, String> entry : entries.entrySet() ) {
+            if ( entry.getKey() == null || entry.getValue() == null ) {
+                continue;
+            }
+
+            int slot = indexOf( entry.getKey() );
+            if ( keys[slot] == null ) {
+                keys[slot] = StringPool.intern( entry.getKey() );
+                size++;
+            }
+            values[slot] = StringPool.intern( entry.getValue() );
+        }
+        this.size = size;
+
+        StringPool.register( this );
+    }
+
+    /**
+     * Get the slot of the key, which is either the slot holding it or the free slot it would be stored in
+     */
+    private int indexOf( String key ) {
+        int hash = key.hashCode();
+        int slot = ( hash ^ ( hash >>> 16 ) ) & mask;
+
+        String current;
+        while ( ( current = keys[slot] ) != null ) {
+            if ( current == key || current.equals( key ) ) {
+                return slot;
+            }
+
+            slot = ( slot + 1 ) & mask;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Get the message stored for the key
+     *
+     * @param key The key which should be looked up
+     * @return The message or null if the key is not present
+     */
+    public String get( String key ) {
+        return key != null ? values[indexOf( key )] : null;
+    }
+
+    /**
+     * Check if the key is present in this table
+     *
+     * @param key The key which should be checked
+     * @return true if present / false if not
+     */
+    public boolean containsKey( String key ) {
+        return key != null && keys[indexOf( key )] != null;
+    }
+
+    /**
+     * Get the amount of entries in this table
+     *
+     * @return The amount of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Pass all keys and messages of this table to the action
+     *
+     * @param action The action to call
+     */
+    @Override
+    public void forEachPooled( Consumer<String> action ) {
+        for ( int i = 0; i < keys.length; i++ ) {
+            if ( keys[i] != null ) {
+                action.accept( keys[i] );
+                action.accept( values[i] );
+            }
+        }
+    }
+
+    /**
+     * Get all keys of this table, in no particular order
+     *
+     * @return A new List of all keys
+     */
+    public List<String> getKeys() {
+        List<String> result = new ArrayList<>( size );
+        for ( String key : keys ) {
+            if ( key != null ) {
+                result.add( key );
+            }
+        }
+
+        return result;
+    }
+}
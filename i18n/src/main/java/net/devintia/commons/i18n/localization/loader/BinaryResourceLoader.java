@@ -0,0 +1,360 @@
+package net.devintia.commons.i18n.localization.loader;
+
+import net.devintia.commons.i18n.localization.ResourceLoadFailedException;
+import net.devintia.commons.i18n.localization.ResourceLoader;
+import net.devintia.commons.i18n.localization.StringPool;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Loads compiled translation bundles (<code>.bundle</code>) as written by {@link BundleWriter}.
+ * <p>
+ * Bundles on disk are memory mapped and nothing gets parsed upfront, so loading is independent of the size of the bundle.
+ * Lookups do a binary search over the hash sorted index and decode the message out of the UTF-8 blob the first time it
+ * is requested. The format is:
+ * <pre>
+ * int magic, int version, int count, int blobLength
+ * count * ( int keyHash, int keyOffset, int keyLength, int valueOffset, int valueLength ), sorted by hash and key
+ * blobLength bytes of UTF-8 keys and values, offsets are relative to the start of the blob
+ * </pre>
+ */
+public class BinaryResourceLoader extends FileResourceLoader implements ResourceLoader, StringPool.Holder {
+    //The format of the bundle
+    static final int MAGIC = 0x44565442;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int ENTRY_SIZE = 20;
+
+    private String file;
+
+    //The whole bundle, only ever read with absolute gets so it can be shared between threads
+    private ByteBuffer data;
+    private int count;
+    private int blobStart;
+    private int blobLength;
+
+    //The messages which have been decoded already, by their position in the index
+    private AtomicReferenceArray<String> decoded = new AtomicReferenceArray<>( 0 );
+
+    /**
+     * Empty Constructor template for the {@link net.devintia.commons.i18n.localization.ResourceManager#registerLoader(net.devintia.commons.i18n.localization.ResourceLoader)}
+     */
+    public BinaryResourceLoader() {
+
+    }
+
+    /**
+     * Load a new compiled bundle
+     *
+     * @param classLoader The classLoader for which this Resource should be loaded
+     * @param file        The file to load
+     * @throws ResourceLoadFailedException if the bundle could not be read or is no valid bundle
+     */
+    public BinaryResourceLoader( ClassLoader classLoader, String file ) throws ResourceLoadFailedException {
+        super( classLoader );
+
+        this.file = file;
+        load();
+
+        StringPool.register( this );
+    }
+
+    private void load() throws ResourceLoadFailedException {
+        ByteBuffer data = getFileByteBuffer( file );
+
+        //Check the header
+        if ( data.capacity() < HEADER_SIZE || data.getInt( 0 ) != MAGIC ) {
+            throw new ResourceLoadFailedException( "The file " + file + " is no translation bundle" );
+        }
+        if ( data.getInt( 4 ) != VERSION ) {
+            throw new ResourceLoadFailedException( "The bundle " + file + " has the unsupported version " + data.getInt( 4 ) );
+        }
+
+        int count = data.getInt( 8 );
+        int blobLength = data.getInt( 12 );
+        long expected = HEADER_SIZE + (long) count * ENTRY_SIZE + blobLength;
+        if ( count < 0 || blobLength < 0 || data.capacity() < expected ) {
+            throw new ResourceLoadFailedException( "The bundle " + file + " is truncated" );
+        }
+
+        //Check every entry now, so a corrupt bundle can't fail lookups later on
+        for ( int i = 0; i < count; i++ ) {
+            int entry = HEADER_SIZE + i * ENTRY_SIZE;
+            if ( !isInBlob( data.getInt( entry + 4 ), data.getInt( entry + 8 ), blobLength )
+                    || !isInBlob( data.getInt( entry + 12 ), data.getInt( entry + 16 ), blobLength ) ) {
+                throw new ResourceLoadFailedException( "The entry " + i + " of the bundle " + file + " points outside of its data" );
+            }
+        }
+
+        this.data = data;
+        this.count = count;
+        this.blobStart = HEADER_SIZE + count * ENTRY_SIZE;
+        this.blobLength = blobLength;
+        this.decoded = new AtomicReferenceArray<>( count );
+    }
+
+    private static boolean isInBlob( int offset, int length, int blobLength ) {
+        return offset >= 0 && length >= 0 && (long) offset + length <= blobLength;
+    }
+
+    /**
+     * Find the position of the key in the index
+     *
+     * @param key The key to search for
+     * @return The position or -1 if the bundle doesn't contain the key
+     */
+    private int indexOf( String key ) {
+        int hash = key.hashCode();
+        int low = 0;
+        int high = count - 1;
+
+        while ( low <= high ) {
+            int mid = ( low + high ) >>> 1;
+            int midHash = hashAt( mid );
+
+            if ( midHash < hash ) {
+                low = mid + 1;
+            } else if ( midHash > hash ) {
+                high = mid - 1;
+            } else {
+                //Walk back to the first entry with this hash and check all of them
+                int i = mid;
+                while ( i > 0 && hashAt( i - 1 ) == hash ) {
+                    i--;
+                }
+
+                for ( ; i < count && hashAt( i ) == hash; i++ ) {
+                    if ( keyEquals( i, key ) ) {
+                        return i;
+                    }
+                }
+
+                return -1;
+            }
+        }
+
+        return -1;
+    }
+
+    private int hashAt( int index ) {
+        return data.getInt( HEADER_SIZE + index * ENTRY_SIZE );
+    }
+
+    /**
+     * Compare the key at the given position with the given key without decoding it, as long as it is plain ASCII
+     */
+    private boolean keyEquals( int index, String key ) {
+        int entry = HEADER_SIZE + index * ENTRY_SIZE;
+        int offset = blobStart + data.getInt( entry + 4 );
+        int length = data.getInt( entry + 8 );
+
+        //UTF-8 never needs less bytes than there are chars
+        if ( length < key.length() ) {
+            return false;
+        }
+
+        if ( length == key.length() ) {
+            boolean ascii = true;
+            for ( int i = 0; i < length; i++ ) {
+                byte b = data.get( offset + i );
+                if ( b < 0 ) {
+                    ascii = false;
+                    break;
+                }
+
+                if ( b != key.charAt( i ) ) {
+                    return false;
+                }
+            }
+
+            if ( ascii ) {
+                return true;
+            }
+        }
+
+        return decode( offset, length ).equals( key );
+    }
+
+    private String decode( int offset, int length ) {
+        byte[] bytes = new byte[length];
+        for ( int i = 0; i < length; i++ ) {
+            bytes[i] = data.get( offset + i );
+        }
+
+        return new String( bytes, StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * Get the message at the given position of the index, decoding it on first access
+     */
+    private String valueAt( int index ) {
+        String value = decoded.get( index );
+        if ( value == null ) {
+            int entry = HEADER_SIZE + index * ENTRY_SIZE;
+            value = StringPool.intern( decode( blobStart + data.getInt( entry + 12 ), data.getInt( entry + 16 ) ) );
+
+            //Racing threads decode the same String, it doesn't matter which one is kept
+            decoded.lazySet( index, value );
+        }
+
+        return value;
+    }
+
+    /**
+     * Check if the other bundle holds exactly the same index and messages, without decoding any of them
+     *
+     * @param other The bundle to compare with
+     * @return true if both bundles are byte for byte the same
+     */
+    public boolean hasSameContent( BinaryResourceLoader other ) {
+        if ( data == null || other.data == null ) {
+            return data == other.data;
+        }
+
+        if ( count != other.count || blobLength != other.blobLength ) {
+            return false;
+        }
+
+        return slice( data ).equals( slice( other.data ) );
+    }
+
+    /**
+     * Get a view of the index and blob of the bundle, without anything which may follow them
+     */
+    private ByteBuffer slice( ByteBuffer buffer ) {
+        ByteBuffer view = buffer.duplicate();
+        view.limit( blobStart + blobLength );
+        view.position( HEADER_SIZE );
+        return view;
+    }
+
+    /**
+     * Pass all messages which have been decoded so far to the action, keys are never kept
+     *
+     * @param action The action to call
+     */
+    @Override
+    public void forEachPooled( Consumer<String> action ) {
+        AtomicReferenceArray<String> decoded = this.decoded;
+        for ( int i = 0; i < decoded.length(); i++ ) {
+            String value = decoded.get( i );
+            if ( value != null ) {
+                action.accept( value );
+            }
+        }
+    }
+
+    /**
+     * Get all keys which can be handled by this Resource. This decodes every key.
+     *
+     * @return List of keys available
+     */
+    @Override
+    public List<String> getKeys() {
+        if ( data == null ) {
+            return Collections.emptyList();
+        }
+
+        List<String> keys = new ArrayList<>( count );
+        for ( int i = 0; i < count; i++ ) {
+            int entry = HEADER_SIZE + i * ENTRY_SIZE;
+            keys.add( decode( blobStart + data.getInt( entry + 4 ), data.getInt( entry + 8 ) ) );
+        }
+
+        return keys;
+    }
+
+    /**
+     * Get the key from the bundle
+     *
+     * @param key Key to get
+     * @return The message or null if the bundle doesn't contain the key
+     */
+    @Override
+    public String get( String key ) {
+        return getOrNull( key );
+    }
+
+    /**
+     * Check if the key is present in the bundle
+     *
+     * @param key Key to check
+     * @return true if the key is present
+     */
+    @Override
+    public boolean has( String key ) {
+        return data != null && key != null && indexOf( key ) != -1;
+    }
+
+    /**
+     * Get the key from the bundle if it is present
+     *
+     * @param key Key to get
+     * @return The message or null if the key is not present
+     */
+    @Override
+    public String getOrNull( String key ) {
+        if ( data == null || key == null ) {
+            return null;
+        }
+
+        int index = indexOf( key );
+        return index != -1 ? valueAt( index ) : null;
+    }
+
+    /**
+     * Estimate the heap usage of this bundle. Mapped bundles only count the decode cache, which at most holds every
+     * message as a String.
+     *
+     * @return The approximated amount of bytes
+     */
+    @Override
+    public long estimateSize() {
+        if ( data == null ) {
+            return 0;
+        }
+
+        long size = 16L * count + 2L * blobLength;
+        return data instanceof MappedByteBuffer ? size : size + data.capacity();
+    }
+
+    /**
+     * Get the Formats this Loader can load
+     *
+     * @return A List of String as formats this Loader supports
+     */
+    @Override
+    public List<String> getFormats() {
+        return Arrays.asList( ".bundle" );
+    }
+
+    /**
+     * Force the reload of this Resource
+     *
+     * @throws ResourceLoadFailedException
+     */
+    @Override
+    public void reload() throws ResourceLoadFailedException {
+        load();
+    }
+
+    /**
+     * If plugin gets unloaded remove all refs. The mapping is released once the GC collects the buffer.
+     */
+    @Override
+    public void cleanup() {
+        data = null;
+        decoded = new AtomicReferenceArray<>( 0 );
+        file = null;
+
+        super.cleanup();
+    }
+}
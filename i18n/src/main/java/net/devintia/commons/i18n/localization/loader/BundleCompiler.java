@@ -0,0 +1,108 @@
+package net.devintia.commons.i18n.localization.loader;
+
+import net.devintia.commons.i18n.localization.ResourceLoadFailedException;
+import net.devintia.commons.i18n.localization.ResourceLoader;
+import org.apache.commons.lang.Validate;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles <code>.yml</code> and <code>.properties</code> locale files into <code>.bundle</code> files for the
+ * {@link BinaryResourceLoader}. The source files are parsed by the same ResourceLoaders which would load them at
+ * runtime, so a bundle contains exactly the messages the source file would provide.
+ * <p>
+ * Usage: <code>java net.devintia.commons.i18n.localization.loader.BundleCompiler [-o outputDirectory] file...</code>
+ * <br>
+ * Without an output directory every bundle is written next to its source file.
+ */
+public final class BundleCompiler {
+
+    private BundleCompiler() {
+
+    }
+
+    public static void main( String[] args ) {
+        File outputDirectory = null;
+        List<File> inputs = new ArrayList<>();
+
+        for ( int i = 0; i < args.length; i++ ) {
+            if ( "-o".equals( args[i] ) && i + 1 < args.length ) {
+                outputDirectory = new File( args[++i] );
+            } else {
+                inputs.add( new File( args[i] ) );
+            }
+        }
+
+        if ( inputs.isEmpty() ) {
+            System.err.println( "Usage: BundleCompiler [-o outputDirectory] file..." );
+            System.exit( 2 );
+        }
+
+        boolean failed = false;
+        for ( File input : inputs ) {
+            try {
+                File output = compile( input, outputDirectory != null ? outputDirectory : input.getAbsoluteFile().getParentFile() );
+                System.out.println( input + " -> " + output );
+            } catch ( IOException | ResourceLoadFailedException | IllegalArgumentException e ) {
+                System.err.println( "Could not compile " + input + ": " + e.getMessage() );
+                failed = true;
+            }
+        }
+
+        if ( failed ) {
+            System.exit( 1 );
+        }
+    }
+
+    /**
+     * Compile one locale file into a bundle
+     *
+     * @param input           The <code>.yml</code> or <code>.properties</code> file to compile
+     * @param outputDirectory The directory the bundle should be written to
+     * @return The written bundle file
+     * @throws ResourceLoadFailedException if the source file could not be parsed
+     * @throws IOException                 if the bundle could not be written
+     */
+    public static File compile( File input, File outputDirectory ) throws ResourceLoadFailedException, IOException {
+        //Validate the input
+        Validate.notNull( input );
+        Validate.notNull( outputDirectory );
+
+        String name = input.getName();
+        int dot = name.lastIndexOf( '.' );
+        Validate.isTrue( dot > 0, "The file " + name + " has no file ending" );
+
+        //Parse the source with the loader which would load it at runtime
+        String param = "file://" + input.getCanonicalPath();
+        ResourceLoader loader;
+        switch ( name.substring( dot ) ) {
+            case ".yml":
+                loader = new YamlResourceLoader( BundleCompiler.class.getClassLoader(), param );
+                break;
+            case ".properties":
+                loader = new PropertiesResourceLoader( BundleCompiler.class.getClassLoader(), param );
+                break;
+            default:
+                throw new IllegalArgumentException( "The file " + name + " is neither .yml nor .properties" );
+        }
+
+        Map<String, String> messages = new LinkedHashMap<>();
+        for ( String key : loader.getKeys() ) {
+            messages.put( key, loader.getOrNull( key ) );
+        }
+        loader.cleanup();
+
+        if ( !outputDirectory.isDirectory() && !outputDirectory.mkdirs() ) {
+            throw new IOException( "Could not create " + outputDirectory );
+        }
+
+        File output = new File( outputDirectory, name.substring( 0, dot ) + ".bundle" );
+        BundleWriter.write( messages, output );
+        return output;
+    }
+}
@@ -0,0 +1,102 @@
+package net.devintia.commons.i18n.localization.loader;
+
+import org.apache.commons.lang.Validate;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes translation bundles which can be loaded by the {@link BinaryResourceLoader}.
+ */
+public final class BundleWriter {
+
+    private BundleWriter() {
+
+    }
+
+    /**
+     * Write the given messages into a bundle file. The bundle is written into a temporary file next to it which then
+     * atomically replaces the file, since loaded bundles keep the old file memory mapped.
+     *
+     * @param messages The keys and messages of the bundle, entries with null values are skipped
+     * @param file     The file to write to, it gets replaced if it exists
+     * @throws IOException if the file could not be written
+     */
+    public static void write( Map<String, String> messages, File file ) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        Path temp = Files.createTempFile( directory.toPath(), file.getName(), ".tmp" );
+
+        try {
+            try ( OutputStream out = new BufferedOutputStream( Files.newOutputStream( temp ) ) ) {
+                write( messages, out );
+            }
+
+            Files.move( temp, file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING );
+        } finally {
+            Files.deleteIfExists( temp );
+        }
+    }
+
+    /**
+     * Write the given messages as bundle into the stream. The stream is not closed.
+     *
+     * @param messages The keys and messages of the bundle, entries with null values are skipped
+     * @param out      The stream to write to
+     * @throws IOException if the stream could not be written
+     */
+    public static void write( Map<String, String> messages, OutputStream out ) throws IOException {
+        //Validate the input
+        Validate.notNull( messages );
+        Validate.notNull( out );
+
+        //Sort the entries by the hash of their key, the loader does a binary search over it
+        List<Map.Entry<String, String>> entries = new ArrayList<>();
+        for ( Map.Entry<String, String> entry : messages.entrySet() ) {
+            if ( entry.getKey() != null && entry.getValue() != null ) {
+                entries.add( entry );
+            }
+        }
+        entries.sort( ( a, b ) -> {
+            int result = Integer.compare( a.getKey().hashCode(), b.getKey().hashCode() );
+            return result != 0 ? result : a.getKey().compareTo( b.getKey() );
+        } );
+
+        //Build the blob and the index next to each other
+        ByteArrayOutputStream blob = new ByteArrayOutputStream();
+        ByteArrayOutputStream index = new ByteArrayOutputStream( entries.size() * BinaryResourceLoader.ENTRY_SIZE );
+        DataOutputStream indexOut = new DataOutputStream( index );
+
+        for ( Map.Entry<String, String> entry : entries ) {
+            byte[] key = entry.getKey().getBytes( StandardCharsets.UTF_8 );
+            byte[] value = entry.getValue().getBytes( StandardCharsets.UTF_8 );
+
+            indexOut.writeInt( entry.getKey().hashCode() );
+            indexOut.writeInt( blob.size() );
+            indexOut.writeInt( key.length );
+            blob.write( key );
+            indexOut.writeInt( blob.size() );
+            indexOut.writeInt( value.length );
+            blob.write( value );
+        }
+
+        DataOutputStream dataOut = new DataOutputStream( out );
+        dataOut.writeInt( BinaryResourceLoader.MAGIC );
+        dataOut.writeInt( BinaryResourceLoader.VERSION );
+        dataOut.writeInt( entries.size() );
+        dataOut.writeInt( blob.size() );
+        index.writeTo( dataOut );
+        blob.writeTo( dataOut );
+        dataOut.flush();
+    }
+}
@@ -2,13 +2,18 @@ package net.devintia.commons.i18n.localization.loader;
 
 import net.devintia.commons.i18n.localization.ResourceLoadFailedException;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 public abstract class FileResourceLoader {
     protected ClassLoader classLoader;
@@ -65,6 +70,49 @@ public abstract class FileResourceLoader {
         throw new ResourceLoadFailedException( "Resource not found" );
     }
 
+    /**
+     * Gets the bytes of the Resource at the given path, the same way {@link #getFileInputStreamReader(String)} finds it.
+     * Files on disk are memory mapped, so they don't take any heap. Resources inside the JAR are read into the heap.
+     *
+     * @param path The path which should be loaded
+     * @return A read only ByteBuffer of the whole Resource
+     * @throws ResourceLoadFailedException if the Resource could not be read or was not found
+     */
+    protected ByteBuffer getFileByteBuffer( String path ) throws ResourceLoadFailedException {
+        try {
+            if ( !path.startsWith( "file://" ) ) {
+                URL resourceUrl = classLoader.getResource( path );
+
+                if ( resourceUrl != null ) {
+                    //If the file is not on the Disk read it from the JAR
+                    try ( InputStream stream = resourceUrl.openStream() ) {
+                        ByteArrayOutputStream out = new ByteArrayOutputStream();
+                        byte[] buffer = new byte[8192];
+                        int read;
+                        while ( ( read = stream.read( buffer ) ) != -1 ) {
+                            out.write( buffer, 0, read );
+                        }
+
+                        return ByteBuffer.wrap( out.toByteArray() ).asReadOnlyBuffer();
+                    }
+                }
+            } else {
+                File file = new File( path.substring( 7 ) );
+
+                if ( file.isFile() ) {
+                    //The mapping stays valid after the channel has been closed
+                    try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ ) ) {
+                        return channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+                    }
+                }
+            }
+        } catch ( IOException e ) {
+            throw new ResourceLoadFailedException( e );
+        }
+
+        throw new ResourceLoadFailedException( "Resource not found" );
+    }
+
     /**
      * Remove the Reference on the Plugin
      */
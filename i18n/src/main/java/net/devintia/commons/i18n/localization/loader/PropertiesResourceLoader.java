@@ -2,18 +2,20 @@ package net.devintia.commons.i18n.localization.loader;
 
 import net.devintia.commons.i18n.localization.ResourceLoadFailedException;
 import net.devintia.commons.i18n.localization.ResourceLoader;
+import net.devintia.commons.i18n.localization.TranslationTable;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 public class PropertiesResourceLoader extends FileResourceLoader implements ResourceLoader {
-    private Properties pro;
+    //Flat copy of the Properties, used for all lookups
+    private TranslationTable lookup = TranslationTable.EMPTY;
     private String file;
-    private ArrayList<String> keys = new ArrayList<>();
 
     /**
      * Empty Constructor template for the {@link net.devintia.commons.i18n.localization.ResourceManager#registerLoader(net.devintia.commons.i18n.localization.ResourceLoader)}
@@ -48,17 +50,18 @@ public class PropertiesResourceLoader extends FileResourceLoader implements Reso
             stream = getFileInputStreamReader( file );
 
             //Try to parse the properties
-            pro = new Properties();
-            pro.load( stream );
+            Properties properties = new Properties();
+            properties.load( stream );
 
-            //Get the keys
-            keys = new ArrayList<>();
-
-            for ( Object o : pro.keySet() ) {
-                keys.add( (String) o );
+            //Get the keys and values
+            Map<String, String> messages = new HashMap<>();
+            for ( String key : properties.stringPropertyNames() ) {
+                messages.put( key, properties.getProperty( key ) );
             }
+
+            lookup = new TranslationTable( messages );
         } catch ( IOException e ) {
-            pro = null;
+            lookup = TranslationTable.EMPTY;
             throw new ResourceLoadFailedException( e );
         } catch ( ResourceLoadFailedException e ) {
             throw e;
@@ -80,7 +83,7 @@ public class PropertiesResourceLoader extends FileResourceLoader implements Reso
      */
     @Override
     public List<String> getKeys() {
-        return keys;
+        return lookup.getKeys();
     }
 
     /**
@@ -91,7 +94,29 @@ public class PropertiesResourceLoader extends FileResourceLoader implements Reso
      */
     @Override
     public String get( String key ) {
-        return pro != null ? (String) pro.get( key ) : null;
+        return lookup.get( key );
+    }
+
+    /**
+     * Check if the key is present in the Properties
+     *
+     * @param key Key to check
+     * @return true if the key is present
+     */
+    @Override
+    public boolean has( String key ) {
+        return lookup.containsKey( key );
+    }
+
+    /**
+     * Get the key from the Properties if it is present
+     *
+     * @param key Key to get
+     * @return The object from Properties or null if the key is not present
+     */
+    @Override
+    public String getOrNull( String key ) {
+        return lookup.get( key );
     }
 
     /**
@@ -123,7 +148,7 @@ public class PropertiesResourceLoader extends FileResourceLoader implements Reso
      */
     @Override
     public void cleanup() {
-        pro = null;
+        lookup = TranslationTable.EMPTY;
         file = null;
 
         super.cleanup();
@@ -2,6 +2,8 @@ package net.devintia.commons.i18n.localization.loader;
 
 import net.devintia.commons.i18n.localization.ResourceLoadFailedException;
 import net.devintia.commons.i18n.localization.ResourceLoader;
+import net.devintia.commons.i18n.localization.TranslationTable;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
@@ -9,12 +11,14 @@ import org.bukkit.configuration.file.YamlConfiguration;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class YamlResourceLoader extends FileResourceLoader implements ResourceLoader {
-    private FileConfiguration lookup;
+    //The flattened messages, the YAML tree itself is not kept
+    private TranslationTable lookup = TranslationTable.EMPTY;
     private String file;
 
     /**
@@ -59,10 +63,20 @@ public class YamlResourceLoader extends FileResourceLoader implements ResourceLo
             }
 
             //Try to read the YamlConfiguration
-            lookup = new YamlConfiguration();
-            lookup.loadFromString( sb.toString() );
+            FileConfiguration configuration = new YamlConfiguration();
+            configuration.loadFromString( sb.toString() );
+
+            //Flatten the tree into dotted keys, sections themselves are no messages
+            Map<String, String> messages = new HashMap<>();
+            for ( Map.Entry<String, Object> entry : configuration.getValues( true ).entrySet() ) {
+                if ( entry.getValue() != null && !( entry.getValue() instanceof ConfigurationSection ) ) {
+                    messages.put( entry.getKey(), entry.getValue().toString() );
+                }
+            }
+
+            lookup = new TranslationTable( messages );
         } catch ( IOException | InvalidConfigurationException e ) {
-            lookup = null;
+            lookup = TranslationTable.EMPTY;
             throw new ResourceLoadFailedException( e );
         } catch ( ResourceLoadFailedException e ) {
             throw e;
@@ -84,18 +98,40 @@ public class YamlResourceLoader extends FileResourceLoader implements ResourceLo
      */
     @Override
     public List<String> getKeys() {
-        return new ArrayList<String>( lookup.getKeys( true ) );
+        return lookup.getKeys();
     }
 
     /**
-     * Get the key from the YamlConfiguration
+     * Get the key from the flattened YAML
      *
      * @param key Key to get
-     * @return The object from YAML or null if YAML loading was an error
+     * @return The message from YAML or null if YAML loading was an error
      */
     @Override
     public String get( String key ) {
-        return lookup != null ? lookup.getString( key ) : null;
+        return lookup.get( key );
+    }
+
+    /**
+     * Check if the key is present in the flattened YAML
+     *
+     * @param key Key to check
+     * @return true if the key is present
+     */
+    @Override
+    public boolean has( String key ) {
+        return lookup.containsKey( key );
+    }
+
+    /**
+     * Get the key from the flattened YAML if it is present
+     *
+     * @param key Key to get
+     * @return The message from YAML or null if the key is not present
+     */
+    @Override
+    public String getOrNull( String key ) {
+        return lookup.get( key );
     }
 
     /**
@@ -127,7 +163,7 @@ public class YamlResourceLoader extends FileResourceLoader implements ResourceLo
      */
     @Override
     public void cleanup() {
-        lookup = null;
+        lookup = TranslationTable.EMPTY;
         file = null;
 
         super.cleanup();